@@ -28,6 +28,7 @@ class BetControllerSpec extends Specification {
 
     private static final String FIXED_JACKPOT_ID = "8d75dbf1-e50e-42f5-91b6-829c10f0d275"
     private static final String VARIABLE_JACKPOT_ID = "fab085d6-4f0b-47ec-ac7a-5a7293d0d48f"
+    private static final String JACKPOT_GROUP_ID = "3f1c2a7e-6b4d-4c8e-9a51-2d7e8f0b9c34"
 
     @LocalServerPort
     int port
@@ -212,7 +213,7 @@ class BetControllerSpec extends Specification {
         response.statusCode() == HttpStatus.OK.value()
         def json = response.jsonPath()
         json.getBoolean("jackpotWon")
-        jackpotRewardRepository.findByBetId(betId.toString()).isPresent()
+        jackpotRewardRepository.findAllByBetIdOrderByIdAsc(betId.toString()).size() == 1
     }
 
     def "should evaluate a bet for a variable chance jackpot and reset pool on win"() {
@@ -250,7 +251,71 @@ class BetControllerSpec extends Specification {
         updatedJackpot.currentPool == initialPool
 
         and: "A jackpot reward record is created"
-        jackpotRewardRepository.findByBetId(betId.toString()).isPresent()
+        jackpotRewardRepository.findAllByBetIdOrderByIdAsc(betId.toString()).size() == 1
+    }
+
+    def "should record a bet on a jackpot group with a single outbox message"() {
+        given: "A new bet request for a jackpot group"
+        def betId = UUID.randomUUID()
+        def userId = UUID.randomUUID()
+        def betRequest = [
+                betId         : betId,
+                jackpotGroupId: JACKPOT_GROUP_ID,
+                betAmount     : 100.00
+        ]
+
+        when: "The bet is published to the API"
+        def response = RestAssured.given()
+                .contentType("application/json")
+                .header("X-User-ID", userId)
+                .body(JsonOutput.toJson(betRequest))
+                .when()
+                .put("/api/v1/bets")
+                .then()
+                .extract().response()
+
+        then: "The API returns 202 Accepted"
+        response.statusCode() == HttpStatus.ACCEPTED.value()
+
+        and: "The bet and its single outbox record carry the group"
+        def betEntity = betRepository.findById(betId.toString()).orElseThrow()
+        betEntity.jackpotGroupId == JACKPOT_GROUP_ID
+        betEntity.jackpotId == null
+
+        def outboxRecord = outboxRepository.findByBetId(betId).orElseThrow()
+        outboxRecord.jackpotGroupId == JACKPOT_GROUP_ID
+        outboxRecord.jackpotId == null
+    }
+
+    def "should evaluate every tier of a jackpot group bet"() {
+        given: "A bet on a jackpot group"
+        def betId = UUID.randomUUID()
+        def userId = UUID.randomUUID()
+        def bet = new BetEntity(betId.toString(), userId.toString(), null, JACKPOT_GROUP_ID, BigDecimal.TEN, Instant.now())
+        betRepository.save(bet)
+
+        and: "The variable tier pool is large enough to guarantee a win"
+        def variableJackpot = jackpotRepository.findById(VARIABLE_JACKPOT_ID).orElseThrow()
+        variableJackpot.currentPool = variableJackpot.winChanceLimit
+        jackpotRepository.save(variableJackpot)
+
+        when: "The bet is evaluated"
+        def response = RestAssured.given()
+                .header("X-User-ID", userId)
+                .when()
+                .put("/api/v1/bets/{betId}/evaluate", betId)
+                .then()
+                .extract().response()
+
+        then: "The API returns 200 OK with the outcome of both tiers"
+        response.statusCode() == HttpStatus.OK.value()
+        def json = response.jsonPath()
+        json.getBoolean("jackpotWon")
+        json.getList("tiers.jackpotId") == [FIXED_JACKPOT_ID, VARIABLE_JACKPOT_ID]
+        json.getBoolean("tiers[1].jackpotWon")
+
+        and: "A reward record is created for each tier"
+        jackpotRewardRepository.findAllByBetIdOrderByIdAsc(betId.toString()).size() == 2
     }
 
     def "should fail to evaluate a bet if it belongs to another user"() {
@@ -304,6 +369,29 @@ class BetControllerSpec extends Specification {
         null              | FIXED_JACKPOT_ID | 100.00
     }
 
+    def "should return 400 Bad Request when both a jackpot and a jackpot group are targeted"() {
+        given: "A bet request with both a jackpot and a jackpot group"
+        def betRequest = [
+                betId         : UUID.randomUUID(),
+                jackpotId     : FIXED_JACKPOT_ID,
+                jackpotGroupId: JACKPOT_GROUP_ID,
+                betAmount     : 100.00
+        ]
+
+        when: "The request is sent to the API"
+        def response = RestAssured.given()
+                .contentType("application/json")
+                .header("X-User-ID", UUID.randomUUID())
+                .body(JsonOutput.toJson(betRequest))
+                .when()
+                .put("/api/v1/bets")
+                .then()
+                .extract().response()
+
+        then: "The API returns 400 Bad Request"
+        response.statusCode() == HttpStatus.BAD_REQUEST.value()
+    }
+
     def "should return 400 Bad Request when X-User-ID header is missing"() {
         given: "A valid bet request"
         def betRequest = [
@@ -119,7 +119,7 @@ class KafkaConsumerSpec extends Specification {
         finalJackpot.currentPool == initialPool.add(expectedContribution.toBigDecimal())
 
         and: "A contribution record is created in the database"
-        contributionRepository.findByBetId(betId.toString()).isPresent()
+        contributionRepository.findAllByBetIdOrderByIdAsc(betId.toString()).size() == 1
 
         and: "The outbox message is marked as processed"
         def processedMessage = outboxRepository.findByBetId(betId).orElseThrow()
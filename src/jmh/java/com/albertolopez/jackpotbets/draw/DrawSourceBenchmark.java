@@ -0,0 +1,77 @@
+package com.albertolopez.jackpotbets.draw;
+
+import com.albertolopez.jackpotbets.domain.ContributionType;
+import com.albertolopez.jackpotbets.domain.JackpotRules;
+import com.albertolopez.jackpotbets.domain.WinChanceType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Draws per second for every {@link DrawSource}, each compared against the win chance of a variable chance jackpot.
+ * This is only the CPU-bound core of evaluating a bet; a full evaluation also reads and writes the database. Run
+ * with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DrawSourceBenchmark {
+
+    private static final JackpotRules RULES = JackpotRules.builder()
+            .initialPool(new BigDecimal("500.00"))
+            .contributionType(ContributionType.VARIABLE_CONTRIBUTION)
+            .contributionPercentage(new BigDecimal("0.10"))
+            .contributionDecreaseRate(new BigDecimal("0.01"))
+            .contributionThreshold(new BigDecimal("10000.00"))
+            .winChanceType(WinChanceType.VARIABLE_CHANCE)
+            .winChanceInitialChance(new BigDecimal("0.01"))
+            .winChanceLimit(new BigDecimal("10000.00"))
+            .winChanceIncreaseRate(new BigDecimal("0.1"))
+            .build();
+
+    private static final BigDecimal CURRENT_POOL = new BigDecimal("2500.00");
+
+    @Param({"THREAD_LOCAL", "SPLITTABLE", "SECURE", "SEEDED"})
+    public DrawSourceType source;
+
+    private DrawSource drawSource;
+
+    @State(Scope.Thread)
+    public static class Bets {
+        private final UUID betId = UUID.randomUUID();
+        private int index;
+    }
+
+    @Setup(Level.Trial)
+    public void createSource() {
+        drawSource = switch (source) {
+            case THREAD_LOCAL -> new ThreadLocalDrawSource();
+            case SPLITTABLE -> new SplittableDrawSource();
+            case SECURE -> new SecureBufferedDrawSource(1024, 64);
+            case SEEDED -> new SeededDrawSource(42);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void closeSource() throws Exception {
+        if (drawSource instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    @Benchmark
+    public boolean drawAgainstWinChance(Bets bets) {
+        return drawSource.draw(bets.betId, bets.index++) < RULES.winChance(CURRENT_POOL);
+    }
+}
@@ -0,0 +1,50 @@
+package com.albertolopez.jackpotbets.api;
+
+import com.albertolopez.jackpotbets.api.dto.SimulationRequest;
+import com.albertolopez.jackpotbets.reconciliation.ReconciliationService;
+import com.albertolopez.jackpotbets.reconciliation.ReconciliationStatus;
+import com.albertolopez.jackpotbets.simulation.SimulationResult;
+import com.albertolopez.jackpotbets.simulation.SimulationService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final ReconciliationService reconciliationService;
+    private final SimulationService simulationService;
+
+    @PostMapping("/reconciliations")
+    public ResponseEntity<ReconciliationStatus> reconcile(@RequestParam(defaultValue = "false") boolean repair) {
+        ReconciliationStatus status = reconciliationService.start(repair);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .path("/{runId}")
+                .buildAndExpand(status.getRunId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(status);
+    }
+
+    @GetMapping("/reconciliations/{runId}")
+    public ResponseEntity<ReconciliationStatus> reconciliation(@PathVariable UUID runId) {
+        return ResponseEntity.of(reconciliationService.status(runId));
+    }
+
+    @PostMapping("/simulations")
+    public ResponseEntity<SimulationResult> simulate(@Valid @RequestBody SimulationRequest request) {
+        return ResponseEntity.ok(simulationService.simulate(request));
+    }
+}
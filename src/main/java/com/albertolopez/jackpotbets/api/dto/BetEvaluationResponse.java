@@ -1,13 +1,20 @@
 package com.albertolopez.jackpotbets.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Value;
 import java.math.BigDecimal;
+import java.util.List;
 
-@Data
+@Value
 @Builder
 public class BetEvaluationResponse {
-    private String betId;
-    private boolean jackpotWon;
-    private BigDecimal rewardAmount;
-}
\ No newline at end of file
+    String betId;
+    boolean jackpotWon;
+    BigDecimal rewardAmount;
+    /**
+     * The outcome of every tier, only set for bets on a jackpot group. The fields above then cover all tiers.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    List<TierEvaluationResponse> tiers;
+}
@@ -1,6 +1,8 @@
 package com.albertolopez.jackpotbets.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import java.util.UUID;
@@ -11,9 +13,16 @@ public class BetRequest {
     @NotNull
     private UUID betId;
 
-    @NotNull
     private String jackpotId;
 
+    private String jackpotGroupId;
+
     @NotNull
     private BigDecimal betAmount;
+
+    @JsonIgnore
+    @AssertTrue(message = "exactly one of jackpotId and jackpotGroupId must be set")
+    public boolean isSingleTarget() {
+        return (jackpotId == null) != (jackpotGroupId == null);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.albertolopez.jackpotbets.api.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class SimulationRequest {
+
+    @NotNull
+    private String jackpotId;
+
+    @NotNull
+    @Positive
+    private BigDecimal betAmount;
+
+    @NotNull
+    @Positive
+    private Long numberOfBets;
+
+    private Long seed;
+
+    @Positive
+    private Double betsPerSecond;
+}
@@ -0,0 +1,14 @@
+package com.albertolopez.jackpotbets.api.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+@Value
+@Builder
+public class TierEvaluationResponse {
+    String jackpotId;
+    boolean jackpotWon;
+    BigDecimal rewardAmount;
+}
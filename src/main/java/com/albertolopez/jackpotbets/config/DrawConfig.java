@@ -0,0 +1,58 @@
+package com.albertolopez.jackpotbets.config;
+
+import com.albertolopez.jackpotbets.draw.DrawSource;
+import com.albertolopez.jackpotbets.draw.DrawSourceType;
+import com.albertolopez.jackpotbets.draw.SecureBufferedDrawSource;
+import com.albertolopez.jackpotbets.draw.SeededDrawSource;
+import com.albertolopez.jackpotbets.draw.SplittableDrawSource;
+import com.albertolopez.jackpotbets.draw.ThreadLocalDrawSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+public class DrawConfig {
+
+    @Value("${jackpot.draw.source}")
+    private DrawSourceType source;
+
+    @Value("${jackpot.draw.seed}")
+    private long seed;
+
+    @Value("${jackpot.draw.secure.block-size}")
+    private int secureBlockSize;
+
+    @Value("${jackpot.draw.secure.buffered-blocks}")
+    private int secureBufferedBlocks;
+
+    @Bean
+    public DrawSource drawSource(MeterRegistry meterRegistry) {
+        return switch (source) {
+            case THREAD_LOCAL -> new ThreadLocalDrawSource();
+            case SPLITTABLE -> new SplittableDrawSource();
+            case SECURE -> secureDrawSource(meterRegistry);
+            case SEEDED -> new SeededDrawSource(seed);
+        };
+    }
+
+    private SecureBufferedDrawSource secureDrawSource(MeterRegistry meterRegistry) {
+        SecureBufferedDrawSource drawSource = new SecureBufferedDrawSource(secureBlockSize, secureBufferedBlocks);
+        FunctionCounter.builder("jackpot.draw.secure.fallback.blocks", drawSource, SecureBufferedDrawSource::getFallbackBlocks)
+                .description("Blocks of draws generated on a request thread because no strong block was buffered")
+                .register(meterRegistry);
+        Gauge.builder("jackpot.draw.secure.buffered.blocks", drawSource, SecureBufferedDrawSource::getBufferedBlocks)
+                .description("Blocks of strong draws ready to be handed out")
+                .register(meterRegistry);
+        return drawSource;
+    }
+
+    @Bean
+    public Clock clock() {
+        return Clock.systemUTC();
+    }
+}
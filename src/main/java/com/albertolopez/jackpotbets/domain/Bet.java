@@ -13,6 +13,7 @@ public class Bet {
     UUID betId;
     UUID userId;
     String jackpotId;
+    String jackpotGroupId;
     BigDecimal betAmount;
     Instant createdAt;
 }
@@ -0,0 +1,84 @@
+package com.albertolopez.jackpotbets.domain;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Contribution and win chance formulas of a jackpot. This is the single implementation used both when bets are
+ * processed and when jackpot configurations are simulated.
+ */
+@Value
+@Builder
+public class JackpotRules {
+
+    public static final double MAX_PROBABILITY = 1.0;
+    public static final int POOL_SCALE = 2;
+
+    BigDecimal initialPool;
+
+    ContributionType contributionType;
+    BigDecimal contributionPercentage;
+    BigDecimal contributionDecreaseRate;
+    BigDecimal contributionThreshold;
+
+    WinChanceType winChanceType;
+    BigDecimal winChancePercentage;
+    BigDecimal winChanceInitialChance;
+    BigDecimal winChanceLimit;
+    BigDecimal winChanceIncreaseRate;
+
+    public BigDecimal contribution(BigDecimal betAmount, BigDecimal currentPool) {
+        return switch (contributionType) {
+            case FIXED_CONTRIBUTION -> fixedContribution(betAmount);
+            case VARIABLE_CONTRIBUTION -> variableContribution(betAmount, currentPool);
+        };
+    }
+
+    /**
+     * Adds a contribution to the pool, rounded to the precision the pool is stored with.
+     */
+    public BigDecimal addContribution(BigDecimal currentPool, BigDecimal contributionAmount) {
+        return currentPool.add(contributionAmount).setScale(POOL_SCALE, RoundingMode.HALF_UP);
+    }
+
+    public double winChance(BigDecimal currentPool) {
+        return switch (winChanceType) {
+            case FIXED_CHANCE -> fixedChance();
+            case VARIABLE_CHANCE -> variableChance(currentPool);
+        };
+    }
+
+    private BigDecimal fixedContribution(BigDecimal betAmount) {
+        return betAmount.multiply(contributionPercentage);
+    }
+
+    private BigDecimal variableContribution(BigDecimal betAmount, BigDecimal currentPool) {
+        if (currentPool.compareTo(contributionThreshold) >= 0) {
+            return BigDecimal.ZERO;
+        }
+
+        BigDecimal percentage = contributionPercentage.subtract(
+                (currentPool.divide(contributionThreshold, RoundingMode.HALF_UP).multiply(contributionDecreaseRate))
+        );
+
+        return betAmount.multiply(percentage);
+    }
+
+    private double fixedChance() {
+        return winChancePercentage.doubleValue();
+    }
+
+    private double variableChance(BigDecimal currentPool) {
+        if (currentPool.compareTo(winChanceLimit) >= 0) {
+            return MAX_PROBABILITY;
+        }
+
+        BigDecimal increasedChance = currentPool.divide(winChanceLimit, RoundingMode.HALF_UP).multiply(winChanceIncreaseRate);
+        double chance = winChanceInitialChance.add(increasedChance).doubleValue();
+
+        return Math.min(MAX_PROBABILITY, chance);
+    }
+}
@@ -0,0 +1,16 @@
+package com.albertolopez.jackpotbets.draw;
+
+import java.util.UUID;
+
+/**
+ * Source of the random numbers a bet is drawn against when it is evaluated.
+ */
+public interface DrawSource {
+
+    /**
+     * @param betId the bet being evaluated
+     * @param index distinguishes several draws made for the same bet
+     * @return a value uniformly distributed in {@code [0, 1)}
+     */
+    double draw(UUID betId, int index);
+}
@@ -0,0 +1,8 @@
+package com.albertolopez.jackpotbets.draw;
+
+public enum DrawSourceType {
+    THREAD_LOCAL,
+    SPLITTABLE,
+    SECURE,
+    SEEDED
+}
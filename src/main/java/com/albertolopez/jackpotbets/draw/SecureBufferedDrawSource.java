@@ -0,0 +1,105 @@
+package com.albertolopez.jackpotbets.draw;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cryptographically strong draws for regulated markets.
+ * <p>
+ * A background thread fills blocks of draws from a strong {@link SecureRandom}, which may block while the operating
+ * system gathers entropy. Request threads take a whole block at a time and never wait for one: if the buffer has run
+ * dry, the block is generated on the spot from the default, non-blocking {@link SecureRandom} instead.
+ */
+@Slf4j
+public class SecureBufferedDrawSource implements DrawSource, AutoCloseable {
+
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private final int blockSize;
+    private final BlockingQueue<double[]> blocks;
+    private final ThreadLocal<Block> currentBlock = ThreadLocal.withInitial(Block::new);
+    private final SecureRandom fallbackRandom = new SecureRandom();
+    private final AtomicLong fallbackBlocks = new AtomicLong();
+    private final Thread refillThread;
+
+    public SecureBufferedDrawSource(int blockSize, int bufferedBlocks) {
+        this.blockSize = blockSize;
+        this.blocks = new ArrayBlockingQueue<>(bufferedBlocks);
+        this.refillThread = new Thread(this::refill, "secure-draw-refill");
+        this.refillThread.setDaemon(true);
+        this.refillThread.start();
+    }
+
+    @Override
+    public double draw(UUID betId, int index) {
+        Block block = currentBlock.get();
+        if (block.position == block.values.length) {
+            double[] values = blocks.poll();
+            if (values == null) {
+                fallbackBlocks.incrementAndGet();
+                values = generate(fallbackRandom);
+            }
+            block.values = values;
+            block.position = 0;
+        }
+        return block.values[block.position++];
+    }
+
+    /**
+     * Number of blocks generated on a request thread because the buffer was empty.
+     */
+    public long getFallbackBlocks() {
+        return fallbackBlocks.get();
+    }
+
+    /**
+     * Number of strong blocks currently waiting in the buffer.
+     */
+    public int getBufferedBlocks() {
+        return blocks.size();
+    }
+
+    private void refill() {
+        SecureRandom strongRandom = strongRandom();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                blocks.put(generate(strongRandom));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double[] generate(SecureRandom random) {
+        double[] values = new double[blockSize];
+        for (int i = 0; i < blockSize; i++) {
+            values[i] = (random.nextLong() >>> 11) * DOUBLE_UNIT;
+        }
+        return values;
+    }
+
+    private static SecureRandom strongRandom() {
+        try {
+            return SecureRandom.getInstanceStrong();
+        } catch (NoSuchAlgorithmException e) {
+            log.warn("No strong SecureRandom available, refilling draws from the default one", e);
+            return new SecureRandom();
+        }
+    }
+
+    @Override
+    public void close() {
+        refillThread.interrupt();
+    }
+
+    private static class Block {
+        private double[] values = new double[0];
+        private int position;
+    }
+}
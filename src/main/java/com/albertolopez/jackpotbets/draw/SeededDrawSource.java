@@ -0,0 +1,36 @@
+package com.albertolopez.jackpotbets.draw;
+
+import java.util.UUID;
+
+/**
+ * Deterministic draws for replaying bets. Each draw is a hash of the seed, the bet id and the draw index, so a
+ * replay gives every bet the same outcome regardless of the order or the threads the bets are evaluated on.
+ */
+public class SeededDrawSource implements DrawSource {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private final long seed;
+
+    public SeededDrawSource(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public double draw(UUID betId, int index) {
+        long hash = mix64(seed ^ betId.getMostSignificantBits());
+        hash = mix64(hash ^ betId.getLeastSignificantBits());
+        hash = mix64(hash + index * GOLDEN_GAMMA);
+        return (hash >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * The finalizer used by {@link java.util.SplittableRandom}.
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,22 @@
+package com.albertolopez.jackpotbets.draw;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Gives every thread its own {@link SplittableRandom}, split from a single root so the streams are independent.
+ */
+public class SplittableDrawSource implements DrawSource {
+
+    private final SplittableRandom root = new SplittableRandom();
+    private final ThreadLocal<SplittableRandom> random = ThreadLocal.withInitial(this::split);
+
+    @Override
+    public double draw(UUID betId, int index) {
+        return random.get().nextDouble();
+    }
+
+    private synchronized SplittableRandom split() {
+        return root.split();
+    }
+}
@@ -0,0 +1,12 @@
+package com.albertolopez.jackpotbets.draw;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class ThreadLocalDrawSource implements DrawSource {
+
+    @Override
+    public double draw(UUID betId, int index) {
+        return ThreadLocalRandom.current().nextDouble();
+    }
+}
@@ -0,0 +1,69 @@
+package com.albertolopez.jackpotbets.journal;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Binary layout shared by journal segments and snapshots. Every record is framed as
+ * {@code [int length][int crc32][body]} so that a torn write at the tail of a file is detected on replay.
+ */
+final class JournalCodec {
+
+    static final int FRAME_HEADER_SIZE = Integer.BYTES * 2;
+
+    private JournalCodec() {
+    }
+
+    static void writeEvent(ByteBuffer body, PoolEvent event) {
+        body.putLong(event.getSequence());
+        body.put(event.getType().getCode());
+        writeString(body, event.getJackpotId());
+        writeDecimal(body, event.getAmount());
+        writeDecimal(body, event.getCurrentPool());
+    }
+
+    static PoolEvent readEvent(ByteBuffer body) {
+        return PoolEvent.builder()
+                .sequence(body.getLong())
+                .type(PoolEventType.fromCode(body.get()))
+                .jackpotId(readString(body))
+                .amount(readDecimal(body))
+                .currentPool(readDecimal(body))
+                .build();
+    }
+
+    static void writeString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeDecimal(ByteBuffer buffer, BigDecimal value) {
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        buffer.putInt(value.scale());
+        buffer.put((byte) unscaled.length);
+        buffer.put(unscaled);
+    }
+
+    static BigDecimal readDecimal(ByteBuffer buffer) {
+        int scale = buffer.getInt();
+        byte[] unscaled = new byte[buffer.get()];
+        buffer.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    static int checksum(ByteBuffer body) {
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        return (int) crc.getValue();
+    }
+}
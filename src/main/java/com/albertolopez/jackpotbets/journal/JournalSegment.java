@@ -0,0 +1,117 @@
+package com.albertolopez.jackpotbets.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+import static com.albertolopez.jackpotbets.journal.JournalCodec.FRAME_HEADER_SIZE;
+
+/**
+ * A fixed-size, memory-mapped journal file. Records are appended one after the other and the unused
+ * remainder of the file stays zeroed, so a zero length marks the end of the written data.
+ */
+final class JournalSegment implements AutoCloseable {
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private JournalSegment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Creates the segment whose first event is {@code firstSequence}. A leftover file with the same name can only
+     * hold a torn tail, since its first event was never fully journaled, so it is truncated.
+     */
+    static JournalSegment create(Path directory, long firstSequence, int size) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new JournalSegment(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+    }
+
+    static JournalSegment openReadOnly(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        return new JournalSegment(path, channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+
+    static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    static long firstSequence(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * Appends the record held in {@code body} (between its position and limit).
+     *
+     * @return false if the segment does not have enough room left, in which case nothing is written
+     */
+    boolean tryAppend(ByteBuffer body) {
+        int length = body.remaining();
+        // Keep room for the zero length that terminates the segment
+        if (buffer.remaining() < FRAME_HEADER_SIZE + length + Integer.BYTES) {
+            return false;
+        }
+        int start = buffer.position();
+        buffer.position(start + Integer.BYTES);
+        buffer.putInt(JournalCodec.checksum(body));
+        buffer.put(body);
+        // The length is published last so that a partially written record reads as the end of the segment
+        buffer.putInt(start, length);
+        return true;
+    }
+
+    /**
+     * Replays every complete record in the segment, stopping at the first empty or corrupt frame.
+     */
+    void forEach(Consumer<PoolEvent> consumer) {
+        ByteBuffer reader = buffer.duplicate();
+        reader.position(0);
+        while (reader.remaining() >= FRAME_HEADER_SIZE) {
+            int length = reader.getInt();
+            int crc = reader.getInt();
+            if (length <= 0 || length > reader.remaining()) {
+                return;
+            }
+            ByteBuffer body = reader.slice(reader.position(), length);
+            if (JournalCodec.checksum(body) != crc) {
+                return;
+            }
+            consumer.accept(JournalCodec.readEvent(body));
+            reader.position(reader.position() + length);
+        }
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+}
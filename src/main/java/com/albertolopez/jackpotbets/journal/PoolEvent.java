@@ -0,0 +1,21 @@
+package com.albertolopez.jackpotbets.journal;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * A single change to a jackpot pool. {@code amount} is the contribution added, the reward paid out, the
+ * correction applied by a reconciliation or the change undone by a rollback, {@code currentPool} is the pool value
+ * once the change has been applied.
+ */
+@Value
+@Builder
+public class PoolEvent {
+    long sequence;
+    PoolEventType type;
+    String jackpotId;
+    BigDecimal amount;
+    BigDecimal currentPool;
+}
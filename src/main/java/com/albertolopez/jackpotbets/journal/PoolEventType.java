@@ -0,0 +1,27 @@
+package com.albertolopez.jackpotbets.journal;
+
+public enum PoolEventType {
+    CONTRIBUTION((byte) 1),
+    RESET((byte) 2),
+    ADJUSTMENT((byte) 3),
+    ROLLBACK((byte) 4);
+
+    private final byte code;
+
+    PoolEventType(byte code) {
+        this.code = code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static PoolEventType fromCode(byte code) {
+        for (PoolEventType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown pool event type: " + code);
+    }
+}
@@ -0,0 +1,443 @@
+package com.albertolopez.jackpotbets.journal;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Append-only, memory-mapped journal of jackpot pool changes.
+ * <p>
+ * Contributions and resets are appended just before the database transaction that made them commits, while
+ * the jackpot row is still locked, so the journal holds pool changes in the order they were committed. Every
+ * {@code snapshot-interval} events the pool of every jackpot is written to a compact snapshot. The previous
+ * snapshot and the segments written after it are kept as a fallback; anything older is deleted, so recovery
+ * only has to load one snapshot and replay at most two intervals of events.
+ * <p>
+ * Appending only writes to the mapped segment. Snapshots, and flushing and closing full segments, run on a
+ * background thread from a copy of the pools, so transactions holding jackpot locks never wait for disk I/O.
+ */
+@Slf4j
+@Component
+public class PoolJournal {
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final int SNAPSHOT_MAGIC = 0x4A50534E;
+    private static final int MAX_EVENT_SIZE = 1024;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final int snapshotInterval;
+    private final Executor backgroundExecutor;
+
+    private final Map<String, BigDecimal> pools = new HashMap<>();
+    private final Map<String, Long> lastSequences = new HashMap<>();
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_EVENT_SIZE);
+    private JournalSegment activeSegment;
+    private long lastSequence;
+    private long snapshotSequence;
+    private long eventsSinceSnapshot;
+    private boolean snapshotPending;
+
+    @Autowired
+    public PoolJournal(@Value("${jackpot.journal.enabled}") boolean enabled,
+                       @Value("${jackpot.journal.directory}") Path directory,
+                       @Value("${jackpot.journal.segment-size}") int segmentSize,
+                       @Value("${jackpot.journal.snapshot-interval}") int snapshotInterval) {
+        this(enabled, directory, segmentSize, snapshotInterval, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pool-journal-background");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    PoolJournal(boolean enabled, Path directory, int segmentSize, int snapshotInterval, Executor backgroundExecutor) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.snapshotInterval = snapshotInterval;
+        this.backgroundExecutor = backgroundExecutor;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Loads the latest readable snapshot and replays the journal events written after it.
+     *
+     * @return the last journaled pool of every jackpot
+     */
+    public synchronized PoolSnapshot recover() {
+        if (!enabled) {
+            return new PoolSnapshot(0, Map.of());
+        }
+        try {
+            Files.createDirectories(directory);
+            PoolSnapshot snapshot = latestSnapshot().orElse(new PoolSnapshot(0, Map.of()));
+            Map<String, BigDecimal> recovered = new HashMap<>(snapshot.getPools());
+            long[] sequence = {snapshot.getSequence()};
+            for (Path segmentPath : files(JournalSegment::isSegment)) {
+                try (JournalSegment segment = JournalSegment.openReadOnly(segmentPath)) {
+                    segment.forEach(event -> {
+                        if (event.getSequence() > sequence[0]) {
+                            recovered.put(event.getJackpotId(), event.getCurrentPool());
+                            sequence[0] = event.getSequence();
+                        }
+                    });
+                }
+            }
+            lastSequence = sequence[0];
+            snapshotSequence = snapshot.getSequence();
+            log.info("Recovered {} jackpot pools from snapshot {} and journal up to event {}",
+                    recovered.size(), snapshot.getSequence(), lastSequence);
+            return new PoolSnapshot(lastSequence, recovered);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover pool journal from " + directory, e);
+        }
+    }
+
+    /**
+     * Starts journaling from the given pools. A snapshot of them is taken straight away, before any event is
+     * appended, so that the events replayed by {@link #recover()} never need to be read again.
+     */
+    public synchronized void open(Map<String, BigDecimal> currentPools) {
+        if (!enabled) {
+            return;
+        }
+        pools.clear();
+        pools.putAll(currentPools);
+        lastSequences.clear();
+        try {
+            long fallbackSequence = snapshotSequence;
+            Path snapshotPath = writeSnapshot(new PoolSnapshot(lastSequence, Map.copyOf(pools)));
+            JournalSegment next = JournalSegment.create(directory, lastSequence + 1, segmentSize);
+            if (activeSegment != null) {
+                activeSegment.close();
+            }
+            activeSegment = next;
+            snapshotSequence = lastSequence;
+            eventsSinceSnapshot = 0;
+            deleteOlderThan(fallbackSequence, snapshotPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open pool journal in " + directory, e);
+        }
+    }
+
+    /*
+     * The record methods must be called while the current transaction holds the lock on the jackpot row, and at
+     * most once per jackpot and transaction. If the transaction rolls back after the event was journaled, the
+     * previous pool is journaled again, unless a later event for the same jackpot has superseded it already.
+     */
+
+    public void recordContribution(String jackpotId, BigDecimal contributionAmount, BigDecimal previousPool, BigDecimal currentPool) {
+        recordBeforeCommit(PoolEventType.CONTRIBUTION, jackpotId, contributionAmount, previousPool, currentPool);
+    }
+
+    public void recordReset(String jackpotId, BigDecimal rewardAmount, BigDecimal previousPool, BigDecimal currentPool) {
+        recordBeforeCommit(PoolEventType.RESET, jackpotId, rewardAmount, previousPool, currentPool);
+    }
+
+    public void recordAdjustment(String jackpotId, BigDecimal adjustmentAmount, BigDecimal previousPool, BigDecimal currentPool) {
+        recordBeforeCommit(PoolEventType.ADJUSTMENT, jackpotId, adjustmentAmount, previousPool, currentPool);
+    }
+
+    private void recordBeforeCommit(PoolEventType type, String jackpotId, BigDecimal amount,
+                                    BigDecimal previousPool, BigDecimal currentPool) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(type, jackpotId, amount, currentPool);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long sequence;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // Throwing here rolls the transaction back, so a pool change is never committed unjournaled
+                sequence = append(type, jackpotId, amount, currentPool);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK && sequence > 0) {
+                    revert(jackpotId, sequence, previousPool.subtract(currentPool), previousPool);
+                }
+            }
+        });
+    }
+
+    private synchronized void revert(String jackpotId, long sequence, BigDecimal amount, BigDecimal previousPool) {
+        if (!lastSequences.getOrDefault(jackpotId, 0L).equals(sequence)) {
+            return;
+        }
+        try {
+            append(PoolEventType.ROLLBACK, jackpotId, amount, previousPool);
+        } catch (RuntimeException e) {
+            log.error("Failed to journal rollback of event {} for jackpot {}", sequence, jackpotId, e);
+        }
+    }
+
+    /**
+     * @return the sequence assigned to the event
+     * @throws IllegalStateException if the journal is not open or the event cannot be written
+     */
+    private synchronized long append(PoolEventType type, String jackpotId, BigDecimal amount, BigDecimal currentPool) {
+        if (activeSegment == null) {
+            throw new IllegalStateException("Pool journal is not open, cannot journal " + type + " event for jackpot " + jackpotId);
+        }
+        PoolEvent event = PoolEvent.builder()
+                .sequence(lastSequence + 1)
+                .type(type)
+                .jackpotId(jackpotId)
+                .amount(amount)
+                .currentPool(currentPool)
+                .build();
+        scratch.clear();
+        JournalCodec.writeEvent(scratch, event);
+        scratch.flip();
+        if (JournalCodec.FRAME_HEADER_SIZE + scratch.remaining() + Integer.BYTES > segmentSize) {
+            throw new IllegalStateException("Pool event " + event.getSequence() + " of " + scratch.remaining()
+                    + " bytes does not fit in a journal segment of " + segmentSize + " bytes");
+        }
+        if (!activeSegment.tryAppend(scratch)) {
+            rollSegment(event.getSequence());
+            if (!activeSegment.tryAppend(scratch)) {
+                throw new IllegalStateException("Pool event " + event.getSequence() + " could not be appended to a new journal segment");
+            }
+        }
+        lastSequence = event.getSequence();
+        pools.put(jackpotId, currentPool);
+        lastSequences.put(jackpotId, lastSequence);
+        if (++eventsSinceSnapshot >= snapshotInterval && !snapshotPending) {
+            scheduleSnapshot();
+        }
+        return lastSequence;
+    }
+
+    private void rollSegment(long firstSequence) {
+        JournalSegment full = activeSegment;
+        try {
+            activeSegment = JournalSegment.create(directory, firstSequence, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll pool journal segment in " + directory, e);
+        }
+        runInBackground(() -> closeSegment(full));
+    }
+
+    /**
+     * Hands a copy of the pools to the background thread. At most one snapshot is pending at a time; events
+     * appended meanwhile are covered by the next one.
+     */
+    private void scheduleSnapshot() {
+        PoolSnapshot snapshot = new PoolSnapshot(lastSequence, Map.copyOf(pools));
+        snapshotPending = true;
+        eventsSinceSnapshot = 0;
+        if (!runInBackground(() -> completeSnapshot(snapshot))) {
+            snapshotPending = false;
+        }
+    }
+
+    /**
+     * Writes the snapshot, then deletes the files it makes redundant. On failure nothing is deleted and the
+     * snapshot is retried after the next event.
+     */
+    private void completeSnapshot(PoolSnapshot snapshot) {
+        boolean written = false;
+        try {
+            Path snapshotPath = writeSnapshot(snapshot);
+            long fallbackSequence;
+            synchronized (this) {
+                fallbackSequence = snapshotSequence;
+                snapshotSequence = snapshot.getSequence();
+            }
+            written = true;
+            deleteOlderThan(fallbackSequence, snapshotPath);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to snapshot pool journal in {} at event {}", directory, snapshot.getSequence(), e);
+        } finally {
+            synchronized (this) {
+                snapshotPending = false;
+                if (!written) {
+                    eventsSinceSnapshot = snapshotInterval;
+                }
+            }
+        }
+    }
+
+    private void closeSegment(JournalSegment segment) {
+        try {
+            segment.force();
+            segment.close();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to close pool journal segment {}", segment.getPath(), e);
+        }
+    }
+
+    /**
+     * @return false if the background thread has been shut down, in which case the task is dropped
+     */
+    private boolean runInBackground(Runnable task) {
+        try {
+            backgroundExecutor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("Pool journal is closing, skipping background task", e);
+            return false;
+        }
+    }
+
+    /**
+     * Deletes the snapshots before {@code fallbackSequence} and the segments holding only events up to it. The
+     * fallback snapshot and the segments after it are kept in case the latest snapshot turns out to be unreadable.
+     */
+    private void deleteOlderThan(long fallbackSequence, Path latestSnapshot) throws IOException {
+        for (Path path : files(PoolJournal::isSnapshot)) {
+            if (!path.equals(latestSnapshot) && snapshotSequence(path) < fallbackSequence) {
+                delete(path);
+            }
+        }
+        List<Path> segments = files(JournalSegment::isSegment);
+        for (int i = 0; i < segments.size() - 1; i++) {
+            // A segment ends right before the first event of the next one
+            if (JournalSegment.firstSequence(segments.get(i + 1)) <= fallbackSequence + 1) {
+                delete(segments.get(i));
+            }
+        }
+    }
+
+    private void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete pool journal file {}", path, e);
+        }
+    }
+
+    private Path writeSnapshot(PoolSnapshot snapshot) throws IOException {
+        ByteBuffer body = ByteBuffer.allocate(Integer.BYTES + Long.BYTES + Integer.BYTES
+                + snapshot.getPools().size() * MAX_EVENT_SIZE);
+        body.putInt(SNAPSHOT_MAGIC);
+        body.putLong(snapshot.getSequence());
+        body.putInt(snapshot.getPools().size());
+        snapshot.getPools().forEach((jackpotId, pool) -> {
+            JournalCodec.writeString(body, jackpotId);
+            JournalCodec.writeDecimal(body, pool);
+        });
+        body.flip();
+
+        ByteBuffer header = ByteBuffer.allocate(JournalCodec.FRAME_HEADER_SIZE);
+        header.putInt(body.remaining());
+        header.putInt(JournalCodec.checksum(body));
+        header.flip();
+
+        Path target = directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, snapshot.getSequence(), SNAPSHOT_SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.write(new ByteBuffer[]{header, body});
+            channel.force(true);
+        }
+        return Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Optional<PoolSnapshot> latestSnapshot() throws IOException {
+        List<Path> snapshots = files(PoolJournal::isSnapshot);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Optional<PoolSnapshot> snapshot = readSnapshot(snapshots.get(i));
+            if (snapshot.isPresent()) {
+                return snapshot;
+            }
+            log.warn("Ignoring corrupt pool snapshot {}", snapshots.get(i));
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<PoolSnapshot> readSnapshot(Path path) throws IOException {
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (file.remaining() < JournalCodec.FRAME_HEADER_SIZE) {
+            return Optional.empty();
+        }
+        int length = file.getInt();
+        int crc = file.getInt();
+        if (length != file.remaining() || JournalCodec.checksum(file) != crc || file.getInt() != SNAPSHOT_MAGIC) {
+            return Optional.empty();
+        }
+        long sequence = file.getLong();
+        int count = file.getInt();
+        Map<String, BigDecimal> pools = new HashMap<>(count);
+        for (int i = 0; i < count; i++) {
+            pools.put(JournalCodec.readString(file), JournalCodec.readDecimal(file));
+        }
+        return Optional.of(new PoolSnapshot(sequence, pools));
+    }
+
+    private static long snapshotSequence(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+
+    private static boolean isSnapshot(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+    }
+
+    private List<Path> files(Predicate<Path> filter) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(filter).sorted(Comparator.comparing(Path::getFileName)).toList();
+        }
+    }
+
+    /**
+     * Waits for a pending snapshot and the closing of full segments before flushing and closing the active segment.
+     */
+    @PreDestroy
+    public void close() {
+        if (backgroundExecutor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+            try {
+                if (!executorService.awaitTermination(10, TimeUnit.SECONDS)) {
+                    log.warn("Pool journal background tasks did not finish in time");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            if (activeSegment == null) {
+                return;
+            }
+            closeSegment(activeSegment);
+            activeSegment = null;
+        }
+    }
+}
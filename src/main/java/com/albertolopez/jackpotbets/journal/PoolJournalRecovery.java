@@ -0,0 +1,80 @@
+package com.albertolopez.jackpotbets.journal;
+
+import com.albertolopez.jackpotbets.persistence.entities.JackpotEntity;
+import com.albertolopez.jackpotbets.persistence.repository.JackpotContributionRepository;
+import com.albertolopez.jackpotbets.persistence.repository.JackpotRepository;
+import com.albertolopez.jackpotbets.persistence.repository.JackpotRewardRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Restores jackpot pools from the {@link PoolJournal} on startup, before the Kafka listeners and the web
+ * server start accepting work.
+ * <p>
+ * Events are journaled right before their transaction commits, so a crash in between leaves an event for a change
+ * that was never committed. Pools are therefore only restored into a database without any contribution or reward
+ * history, i.e. the in-memory database after a restart. A database that still holds history survived the restart
+ * and is kept as it is, and any pool the journal disagrees with is left to the reconciliation.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PoolJournalRecovery {
+
+    private final PoolJournal poolJournal;
+    private final JackpotRepository jackpotRepository;
+    private final JackpotContributionRepository contributionRepository;
+    private final JackpotRewardRepository rewardRepository;
+    private final TransactionTemplate transactionTemplate;
+    private Set<String> restoredJackpotIds = Set.of();
+
+    @PostConstruct
+    public void recover() {
+        if (!poolJournal.isEnabled()) {
+            return;
+        }
+        PoolSnapshot recovered = poolJournal.recover();
+        Map<String, BigDecimal> currentPools = transactionTemplate.execute(status -> restorePools(recovered));
+        poolJournal.open(currentPools);
+    }
+
+    /**
+     * The jackpots whose pool differed from the database on startup and was overwritten with the journaled one.
+     * Their contribution and reward history before the restart is gone, so it no longer adds up to their pool.
+     */
+    public Set<String> getRestoredJackpotIds() {
+        return restoredJackpotIds;
+    }
+
+    private Map<String, BigDecimal> restorePools(PoolSnapshot recovered) {
+        boolean durableDatabase = contributionRepository.findFirstByOrderByIdAsc().isPresent()
+                || rewardRepository.findFirstByOrderByIdAsc().isPresent();
+        Map<String, BigDecimal> currentPools = new HashMap<>();
+        Set<String> restored = new HashSet<>();
+        for (JackpotEntity jackpot : jackpotRepository.findAll()) {
+            BigDecimal recoveredPool = recovered.getPools().get(jackpot.getId());
+            if (recoveredPool != null && recoveredPool.compareTo(jackpot.getCurrentPool()) != 0) {
+                if (durableDatabase) {
+                    log.warn("Keeping pool {} of jackpot {} from the database, which has history, over {} from the journal",
+                            jackpot.getCurrentPool(), jackpot.getId(), recoveredPool);
+                } else {
+                    log.info("Restoring pool of jackpot {} from {} to {}", jackpot.getId(), jackpot.getCurrentPool(), recoveredPool);
+                    jackpot.setCurrentPool(recoveredPool);
+                    restored.add(jackpot.getId());
+                }
+            }
+            currentPools.put(jackpot.getId(), jackpot.getCurrentPool());
+        }
+        restoredJackpotIds = Set.copyOf(restored);
+        return currentPools;
+    }
+}
@@ -0,0 +1,15 @@
+package com.albertolopez.jackpotbets.journal;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * The pool of every jackpot as of the journal event with the given sequence number.
+ */
+@Value
+public class PoolSnapshot {
+    long sequence;
+    Map<String, BigDecimal> pools;
+}
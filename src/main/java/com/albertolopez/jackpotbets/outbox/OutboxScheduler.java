@@ -12,6 +12,7 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Clock;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
@@ -23,6 +24,7 @@ public class OutboxScheduler {
     private final OutboxRepository outboxRepository;
     private final BetRepository betRepository;
     private final KafkaTemplate<String, BetMessage> kafkaTemplate;
+    private final Clock clock;
 
     @Value("${jackpot.outbox.batch-size}")
     private int batchSize;
@@ -38,13 +40,14 @@ public class OutboxScheduler {
                 BetMessage betMessage = BetMessage.newBuilder()
                         .setBetId(messageEntity.getBetId().toString())
                         .setJackpotId(betEntity.getJackpotId())
+                        .setJackpotGroupId(betEntity.getJackpotGroupId())
                         .setUserId(betEntity.getUserId())
                         .setBetAmount(betEntity.getBetAmount().doubleValue())
                         .setCreatedAt(messageEntity.getCreatedAt().toEpochMilli())
                         .build();
                 try {
                     kafkaTemplate.send(messageEntity.getTopic(), messageEntity.getBetId().toString(), betMessage);
-                    messageEntity.setProcessedAt(Instant.now());
+                    messageEntity.setProcessedAt(Instant.now(clock));
                 } catch (Exception e) {
                     // Log the error and continue with other messages
                     System.err.println("Failed to send Kafka message for uuid " + messageEntity.getBetId() + ": " + e.getMessage());
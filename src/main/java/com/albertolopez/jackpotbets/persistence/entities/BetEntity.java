@@ -24,13 +24,19 @@ public class BetEntity {
     private String betId;
     private String userId;
     private String jackpotId;
+    private String jackpotGroupId;
     private BigDecimal betAmount;
     private Instant createdAt;
 
+    public BetEntity(String betId, String userId, String jackpotId, BigDecimal betAmount, Instant createdAt) {
+        this(betId, userId, jackpotId, null, betAmount, createdAt);
+    }
+
     public BetEntity(Bet bet) {
         this.betId = bet.getBetId().toString();
         this.userId = bet.getUserId().toString();
         this.jackpotId = bet.getJackpotId();
+        this.jackpotGroupId = bet.getJackpotGroupId();
         this.betAmount = bet.getBetAmount();
         this.createdAt = bet.getCreatedAt();
     }
@@ -1,6 +1,7 @@
 package com.albertolopez.jackpotbets.persistence.entities;
 
 import com.albertolopez.jackpotbets.domain.ContributionType;
+import com.albertolopez.jackpotbets.domain.JackpotRules;
 import com.albertolopez.jackpotbets.domain.WinChanceType;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -44,4 +45,18 @@ public class JackpotEntity {
     private BigDecimal winChanceLimit;
     private BigDecimal winChanceIncreaseRate;
 
+    public JackpotRules rules() {
+        return JackpotRules.builder()
+                .initialPool(initialPool)
+                .contributionType(contributionType)
+                .contributionPercentage(contributionPercentage)
+                .contributionDecreaseRate(contributionDecreaseRate)
+                .contributionThreshold(contributionThreshold)
+                .winChanceType(winChanceType)
+                .winChancePercentage(winChancePercentage)
+                .winChanceInitialChance(winChanceInitialChance)
+                .winChanceLimit(winChanceLimit)
+                .winChanceIncreaseRate(winChanceIncreaseRate)
+                .build();
+    }
 }
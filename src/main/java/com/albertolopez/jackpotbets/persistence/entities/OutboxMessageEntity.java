@@ -28,6 +28,7 @@ public class OutboxMessageEntity {
 
     private UUID betId;
     private String jackpotId;
+    private String jackpotGroupId;
     private UUID userId;
     private BigDecimal betAmount;
     private String topic;
@@ -35,8 +36,13 @@ public class OutboxMessageEntity {
     private Instant processedAt;
 
     public OutboxMessageEntity(UUID betId, String jackpotId, UUID userId, BigDecimal betAmount, String topic, Instant createdAt) {
+        this(betId, jackpotId, null, userId, betAmount, topic, createdAt);
+    }
+
+    public OutboxMessageEntity(UUID betId, String jackpotId, String jackpotGroupId, UUID userId, BigDecimal betAmount, String topic, Instant createdAt) {
         this.betId = betId;
         this.jackpotId = jackpotId;
+        this.jackpotGroupId = jackpotGroupId;
         this.userId = userId;
         this.betAmount = betAmount;
         this.topic = topic;
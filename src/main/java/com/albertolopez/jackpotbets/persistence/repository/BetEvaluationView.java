@@ -0,0 +1,24 @@
+package com.albertolopez.jackpotbets.persistence.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * One tier of a bet as needed to evaluate it: the owner and target of the bet, the jackpot of the tier and the reward
+ * if the tier has already been evaluated.
+ */
+public interface BetEvaluationView {
+
+    String getUserId();
+
+    String getBetJackpotId();
+
+    String getJackpotGroupId();
+
+    String getJackpotId();
+
+    BigDecimal getRewardAmount();
+
+    default boolean isEvaluated() {
+        return getRewardAmount() != null;
+    }
+}
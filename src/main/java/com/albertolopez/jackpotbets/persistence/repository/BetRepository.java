@@ -2,10 +2,34 @@ package com.albertolopez.jackpotbets.persistence.repository;
 
 import com.albertolopez.jackpotbets.persistence.entities.BetEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface BetRepository extends JpaRepository<BetEntity, String> {
 
     Optional<BetEntity> findByBetId(String betId);
-}
\ No newline at end of file
+
+    /**
+     * The tiers of a bet and their rewards in a single query, one row per tier in tier order. A bet on a single
+     * jackpot has one row, a bet that does not exist has none. A bet whose jackpot or group cannot be found has a
+     * single row without a jackpot id. The pools are read afterwards, under lock, and only
+     * for the tiers that still have to be drawn.
+     */
+    @Query(value = """
+            SELECT b.user_id AS userId,
+                   b.jackpot_id AS betJackpotId,
+                   b.jackpot_group_id AS jackpotGroupId,
+                   j.id AS jackpotId,
+                   r.jackpot_reward_amount AS rewardAmount
+            FROM bets b
+            LEFT JOIN jackpot_group_members m ON m.group_id = b.jackpot_group_id
+            LEFT JOIN jackpots j ON j.id = COALESCE(m.jackpot_id, b.jackpot_id)
+            LEFT JOIN jackpot_rewards r ON r.bet_id = b.bet_id AND r.jackpot_id = j.id
+            WHERE b.bet_id = ?1
+            ORDER BY m.tier ASC
+            """,
+            nativeQuery = true)
+    List<BetEvaluationView> findEvaluationViewsByBetId(String betId);
+}
@@ -0,0 +1,14 @@
+package com.albertolopez.jackpotbets.persistence.repository;
+
+import com.albertolopez.jackpotbets.domain.JackpotContribution;
+
+import java.util.List;
+
+public interface JackpotContributionBatchRepository {
+
+    /**
+     * Inserts all contributions in a single JDBC batch. Hibernate cannot batch inserts into tables with identity
+     * columns, which is why this bypasses {@code saveAll}.
+     */
+    void insertAll(List<JackpotContribution> contributions);
+}
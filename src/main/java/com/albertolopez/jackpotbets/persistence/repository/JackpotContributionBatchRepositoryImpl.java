@@ -0,0 +1,32 @@
+package com.albertolopez.jackpotbets.persistence.repository;
+
+import com.albertolopez.jackpotbets.domain.JackpotContribution;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class JackpotContributionBatchRepositoryImpl implements JackpotContributionBatchRepository {
+
+    private static final String INSERT = "INSERT INTO jackpot_contributions "
+            + "(bet_id, user_id, jackpot_id, stake_amount, contribution_amount, current_jackpot_amount, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<JackpotContribution> contributions) {
+        jdbcTemplate.batchUpdate(INSERT, contributions, contributions.size(), (ps, contribution) -> {
+            ps.setString(1, contribution.getBetId().toString());
+            ps.setString(2, contribution.getUserId().toString());
+            ps.setString(3, contribution.getJackpotId());
+            ps.setBigDecimal(4, contribution.getStakeAmount());
+            ps.setBigDecimal(5, contribution.getContributionAmount());
+            ps.setBigDecimal(6, contribution.getCurrentJackpotAmount());
+            ps.setObject(7, OffsetDateTime.ofInstant(contribution.getCreatedAt(), ZoneOffset.UTC));
+        });
+    }
+}
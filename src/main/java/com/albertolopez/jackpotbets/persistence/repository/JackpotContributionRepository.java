@@ -3,9 +3,15 @@ package com.albertolopez.jackpotbets.persistence.repository;
 import com.albertolopez.jackpotbets.persistence.entities.JackpotContributionEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
 import java.util.Optional;
 
-public interface JackpotContributionRepository extends JpaRepository<JackpotContributionEntity, Long> {
+public interface JackpotContributionRepository extends JpaRepository<JackpotContributionEntity, Long>, JackpotContributionBatchRepository {
 
-    Optional<JackpotContributionEntity> findByBetId(String betId);
-}
\ No newline at end of file
+    /**
+     * One contribution per jackpot the bet targets: a single one for a jackpot bet, one per tier for a group bet.
+     */
+    List<JackpotContributionEntity> findAllByBetIdOrderByIdAsc(String betId);
+
+    Optional<JackpotContributionEntity> findFirstByOrderByIdAsc();
+}
@@ -1,8 +1,41 @@
 package com.albertolopez.jackpotbets.persistence.repository;
 
 import com.albertolopez.jackpotbets.persistence.entities.JackpotEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public interface JackpotRepository extends JpaRepository<JackpotEntity, String> {
-}
 
+    @Query(value = "SELECT jackpot_id FROM jackpot_group_members WHERE group_id = ?1 ORDER BY tier ASC", nativeQuery = true)
+    List<String> findJackpotIdsByGroupId(String groupId);
+
+    /**
+     * Locks the jackpots until the end of the transaction. Rows are always locked in id order so that
+     * transactions touching several jackpots cannot deadlock each other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<JackpotEntity> findAllByIdInOrderByIdAsc(Collection<String> ids);
+
+    /**
+     * The jackpots a bet contributes to and is drawn against, locked until the end of the transaction: every tier
+     * of its group in tier order, or its single jackpot.
+     */
+    default List<JackpotEntity> findAllTargetedByForUpdate(String jackpotId, String jackpotGroupId) {
+        List<String> ids = jackpotGroupId != null ? findJackpotIdsByGroupId(jackpotGroupId) : List.of(jackpotId);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, JackpotEntity> locked = findAllByIdInOrderByIdAsc(ids).stream()
+                .collect(Collectors.toMap(JackpotEntity::getId, Function.identity()));
+        return ids.stream().map(locked::get).filter(Objects::nonNull).toList();
+    }
+}
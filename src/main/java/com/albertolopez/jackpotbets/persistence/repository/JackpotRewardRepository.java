@@ -3,9 +3,15 @@ package com.albertolopez.jackpotbets.persistence.repository;
 import com.albertolopez.jackpotbets.persistence.entities.JackpotRewardEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface JackpotRewardRepository extends JpaRepository<JackpotRewardEntity, Long> {
 
-    Optional<JackpotRewardEntity> findByBetId(String betId);
-}
\ No newline at end of file
+    /**
+     * One reward per jackpot the bet was drawn against: a single one for a jackpot bet, one per tier for a group bet.
+     */
+    List<JackpotRewardEntity> findAllByBetIdOrderByIdAsc(String betId);
+
+    Optional<JackpotRewardEntity> findFirstByOrderByIdAsc();
+}
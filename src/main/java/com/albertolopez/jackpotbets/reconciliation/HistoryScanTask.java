@@ -0,0 +1,65 @@
+package com.albertolopez.jackpotbets.reconciliation;
+
+import lombok.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongConsumer;
+
+/**
+ * Sums the pool changes of every jackpot over an id range of a history table. Ranges larger than the chunk size
+ * are split in two and scanned in parallel; each chunk is streamed with a single forward-only cursor.
+ */
+class HistoryScanTask extends RecursiveTask<Map<String, PoolTotals>> {
+
+    private final HistoryTable table;
+    private final long fromId;
+    private final long toId;
+    private final ScanContext context;
+
+    HistoryScanTask(HistoryTable table, long fromId, long toId, ScanContext context) {
+        this.table = table;
+        this.fromId = fromId;
+        this.toId = toId;
+        this.context = context;
+    }
+
+    @Override
+    protected Map<String, PoolTotals> compute() {
+        if (toId - fromId <= context.getChunkSize()) {
+            return scanChunk();
+        }
+        long middle = fromId + (toId - fromId) / 2;
+        HistoryScanTask left = new HistoryScanTask(table, fromId, middle, context);
+        left.fork();
+        Map<String, PoolTotals> totals = new HistoryScanTask(table, middle, toId, context).compute();
+        left.join().forEach((jackpotId, leftTotals) -> totals.merge(jackpotId, leftTotals, PoolTotals::merge));
+        return totals;
+    }
+
+    private Map<String, PoolTotals> scanChunk() {
+        Map<String, PoolTotals> totals = new HashMap<>();
+        long[] rows = {0};
+        RowCallbackHandler accumulator = rs -> {
+            table.addTo(totals.computeIfAbsent(rs.getString(1), id -> new PoolTotals()), rs.getBigDecimal(2));
+            rows[0]++;
+        };
+        // Some drivers only stream with a fetch size when the cursor runs inside a transaction
+        context.getTransactionTemplate().executeWithoutResult(status ->
+                context.getJdbcTemplate().query(table.chunkQuery(), accumulator, fromId, toId));
+        context.getRowsScanned().accept(rows[0]);
+        return totals;
+    }
+
+    @Value
+    static class ScanContext {
+        JdbcTemplate jdbcTemplate;
+        TransactionTemplate transactionTemplate;
+        long chunkSize;
+        LongConsumer rowsScanned;
+    }
+}
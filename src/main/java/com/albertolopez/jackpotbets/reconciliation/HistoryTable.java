@@ -0,0 +1,52 @@
+package com.albertolopez.jackpotbets.reconciliation;
+
+import java.math.BigDecimal;
+
+/**
+ * The history tables streamed by the reconciliation and the rows of each that change a jackpot pool.
+ */
+enum HistoryTable {
+    CONTRIBUTIONS("jackpot_contributions",
+            "SELECT jackpot_id, contribution_amount FROM jackpot_contributions WHERE id >= ? AND id < ?",
+            "SELECT jackpot_id, contribution_amount FROM jackpot_contributions WHERE jackpot_id = ? AND id > ?"),
+    REWARDS("jackpot_rewards",
+            "SELECT jackpot_id, jackpot_reward_amount FROM jackpot_rewards WHERE id >= ? AND id < ? AND jackpot_reward_amount > 0",
+            "SELECT jackpot_id, jackpot_reward_amount FROM jackpot_rewards WHERE jackpot_id = ? AND id > ? AND jackpot_reward_amount > 0");
+
+    private final String tableName;
+    private final String chunkQuery;
+    private final String tailQuery;
+
+    HistoryTable(String tableName, String chunkQuery, String tailQuery) {
+        this.tableName = tableName;
+        this.chunkQuery = chunkQuery;
+        this.tailQuery = tailQuery;
+    }
+
+    String idRangeQuery() {
+        return "SELECT MIN(id), MAX(id) FROM " + tableName;
+    }
+
+    String chunkQuery() {
+        return chunkQuery;
+    }
+
+    /**
+     * The rows of one jackpot written after a given id, in the same shape as {@link #chunkQuery()}.
+     */
+    String tailQuery() {
+        return tailQuery;
+    }
+
+    void addTo(PoolTotals totals, BigDecimal amount) {
+        if (this == CONTRIBUTIONS) {
+            totals.addContribution(amount);
+        } else {
+            totals.addPayout(amount);
+        }
+    }
+
+    String metricTag() {
+        return tableName;
+    }
+}
@@ -0,0 +1,17 @@
+package com.albertolopez.jackpotbets.reconciliation;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+@Value
+@Builder
+public class PoolDiscrepancy {
+    String jackpotId;
+    BigDecimal currentPool;
+    BigDecimal expectedPool;
+    BigDecimal difference;
+    boolean repaired;
+    boolean restoredFromJournal;
+}
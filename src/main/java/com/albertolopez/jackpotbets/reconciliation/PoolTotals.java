@@ -0,0 +1,41 @@
+package com.albertolopez.jackpotbets.reconciliation;
+
+import java.math.BigDecimal;
+
+/**
+ * Running totals of the history of one jackpot, accumulated by a single scan task and merged afterwards.
+ */
+class PoolTotals {
+
+    private BigDecimal contributions = BigDecimal.ZERO;
+    private BigDecimal payouts = BigDecimal.ZERO;
+    private long wins;
+
+    void addContribution(BigDecimal amount) {
+        contributions = contributions.add(amount);
+    }
+
+    void addPayout(BigDecimal amount) {
+        payouts = payouts.add(amount);
+        wins++;
+    }
+
+    PoolTotals merge(PoolTotals other) {
+        contributions = contributions.add(other.contributions);
+        payouts = payouts.add(other.payouts);
+        wins += other.wins;
+        return this;
+    }
+
+    /**
+     * A win pays out the whole pool and resets it to the initial pool, so every win moves the pool by
+     * {@code initialPool - payout}. Summing over the full history gives the same result as adding the
+     * contributions made since the last win, without needing the rows in order.
+     */
+    BigDecimal expectedPool(BigDecimal initialPool) {
+        return initialPool
+                .add(contributions)
+                .add(initialPool.multiply(BigDecimal.valueOf(wins)))
+                .subtract(payouts);
+    }
+}
@@ -0,0 +1,17 @@
+package com.albertolopez.jackpotbets.reconciliation;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@Builder
+public class ReconciliationReport {
+    int jackpotsChecked;
+    long contributionRows;
+    long payoutRows;
+    long durationMillis;
+    long rowsPerSecond;
+    List<PoolDiscrepancy> discrepancies;
+}
@@ -0,0 +1,65 @@
+package com.albertolopez.jackpotbets.reconciliation;
+
+import lombok.Getter;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A reconciliation running in the background. The scan tasks add the rows they stream as they go, so its progress
+ * can be polled while it runs.
+ */
+class ReconciliationRun {
+
+    @Getter
+    private final UUID id = UUID.randomUUID();
+    private final boolean repair;
+    @Getter
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong rowsScanned = new AtomicLong();
+    private volatile long endNanos;
+    private volatile ReconciliationReport report;
+    private volatile String failure;
+
+    ReconciliationRun(boolean repair) {
+        this.repair = repair;
+    }
+
+    /**
+     * @return the rows scanned so far, including these
+     */
+    long addRowsScanned(long rows) {
+        return rowsScanned.addAndGet(rows);
+    }
+
+    void complete(ReconciliationReport report) {
+        this.endNanos = System.nanoTime();
+        this.report = report;
+    }
+
+    void fail(Exception e) {
+        this.endNanos = System.nanoTime();
+        this.failure = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+    }
+
+    ReconciliationStatus status() {
+        ReconciliationReport finalReport = report;
+        String finalFailure = failure;
+        ReconciliationStatus.State state = finalReport != null ? ReconciliationStatus.State.COMPLETED
+                : finalFailure != null ? ReconciliationStatus.State.FAILED
+                : ReconciliationStatus.State.RUNNING;
+        long elapsedNanos = Math.max(1, (state == ReconciliationStatus.State.RUNNING ? System.nanoTime() : endNanos) - startNanos);
+        long rows = rowsScanned.get();
+        return ReconciliationStatus.builder()
+                .runId(id)
+                .state(state)
+                .repair(repair)
+                .rowsScanned(rows)
+                .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .rowsPerSecond(rows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos)
+                .report(finalReport)
+                .failure(finalFailure)
+                .build();
+    }
+}
@@ -0,0 +1,283 @@
+package com.albertolopez.jackpotbets.reconciliation;
+
+import com.albertolopez.jackpotbets.journal.PoolJournal;
+import com.albertolopez.jackpotbets.journal.PoolJournalRecovery;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies that the pool of every jackpot matches its contribution and reward history.
+ * <p>
+ * The pools and the last id of each history table are read first, with every jackpot briefly locked, and only the
+ * rows up to those ids are compared against them. Both history tables are streamed with forward-only cursors over
+ * id ranges that are scanned in parallel on a fork-join pool, without loading any entities. A pool is only repaired
+ * under lock, after adding the history written for it since the baseline, so bets processed during the scan are
+ * never overwritten.
+ * <p>
+ * Runs take as long as the history is large, so they are started in the background, one at a time, and the last
+ * {@value #RETAINED_RUNS} runs can be polled for their progress and report.
+ */
+@Slf4j
+@Service
+public class ReconciliationService {
+
+    private static final int RETAINED_RUNS = 16;
+
+    private final PoolJournal poolJournal;
+    private final PoolJournalRecovery poolJournalRecovery;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final Timer durationTimer;
+    private final Map<HistoryTable, Counter> rowCounters = new EnumMap<>(HistoryTable.class);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "jackpot-reconciliation");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<UUID, ReconciliationRun> runs = new LinkedHashMap<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${jackpot.reconciliation.parallelism}")
+    private int parallelism;
+
+    @Value("${jackpot.reconciliation.chunk-size}")
+    private long chunkSize;
+
+    @Value("${jackpot.reconciliation.progress-interval}")
+    private long progressInterval;
+
+    @Value("${jackpot.reconciliation.tolerance}")
+    private BigDecimal tolerance;
+
+    public ReconciliationService(PoolJournal poolJournal,
+                                 PoolJournalRecovery poolJournalRecovery,
+                                 DataSource dataSource,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${jackpot.reconciliation.fetch-size}") int fetchSize) {
+        this.poolJournal = poolJournal;
+        this.poolJournalRecovery = poolJournalRecovery;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.durationTimer = meterRegistry.timer("jackpot.reconciliation.duration");
+        for (HistoryTable table : HistoryTable.values()) {
+            rowCounters.put(table, meterRegistry.counter("jackpot.reconciliation.rows", "table", table.metricTag()));
+        }
+    }
+
+    /**
+     * Starts a reconciliation in the background.
+     *
+     * @return the status of the new run, whose id can be polled with {@link #status(UUID)}
+     * @throws ResponseStatusException if a reconciliation is already running
+     */
+    public ReconciliationStatus start(boolean repair) {
+        if (!running.compareAndSet(false, true)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A reconciliation is already running");
+        }
+        ReconciliationRun run = new ReconciliationRun(repair);
+        synchronized (runs) {
+            runs.put(run.getId(), run);
+            if (runs.size() > RETAINED_RUNS) {
+                runs.remove(runs.keySet().iterator().next());
+            }
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    run.complete(durationTimer.record(() -> reconcile(run)));
+                } catch (RuntimeException e) {
+                    log.error("Reconciliation {} failed", run.getId(), e);
+                    run.fail(e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            throw e;
+        }
+        return run.status();
+    }
+
+    public Optional<ReconciliationStatus> status(UUID runId) {
+        synchronized (runs) {
+            return Optional.ofNullable(runs.get(runId)).map(ReconciliationRun::status);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private ReconciliationReport reconcile(ReconciliationRun run) {
+        Map<HistoryTable, Long> rowsByTable = new EnumMap<>(HistoryTable.class);
+        Map<String, PoolTotals> totals = new HashMap<>();
+        Baseline baseline = transactionTemplate.execute(status -> captureBaseline());
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (HistoryTable table : HistoryTable.values()) {
+                AtomicLong tableRows = new AtomicLong();
+                HistoryScanTask.ScanContext context = new HistoryScanTask.ScanContext(
+                        jdbcTemplate, readOnlyTransactionTemplate, chunkSize,
+                        rows -> recordProgress(table, rows, tableRows, run));
+                scan(pool, table, baseline, context).forEach((jackpotId, tableTotals) ->
+                        totals.merge(jackpotId, tableTotals, PoolTotals::merge));
+                rowsByTable.put(table, tableRows.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        List<PoolDiscrepancy> discrepancies = compare(baseline, totals, run.isRepair());
+        long totalRows = rowsByTable.values().stream().mapToLong(Long::longValue).sum();
+        long elapsedNanos = System.nanoTime() - run.getStartNanos();
+        long rowsPerSecond = elapsedNanos == 0 ? 0 : totalRows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        log.info("Reconciliation {} scanned {} rows in {} ms ({} rows/s) and found {} discrepancies",
+                run.getId(), totalRows, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), rowsPerSecond, discrepancies.size());
+
+        return ReconciliationReport.builder()
+                .jackpotsChecked(baseline.jackpots().size())
+                .contributionRows(rowsByTable.getOrDefault(HistoryTable.CONTRIBUTIONS, 0L))
+                .payoutRows(rowsByTable.getOrDefault(HistoryTable.REWARDS, 0L))
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .rowsPerSecond(rowsPerSecond)
+                .discrepancies(discrepancies)
+                .build();
+    }
+
+    /**
+     * Reads every pool and the id range of each history table while all jackpots are locked. Bets lock the jackpots
+     * they change before writing any history, so every row up to the last id read here is committed and already
+     * reflected in the pools, and every later row is not.
+     */
+    private Baseline captureBaseline() {
+        List<JackpotPool> jackpots = jdbcTemplate.query("SELECT id, initial_pool, current_pool FROM jackpots ORDER BY id FOR UPDATE",
+                (rs, rowNum) -> new JackpotPool(rs.getString(1), rs.getBigDecimal(2), rs.getBigDecimal(3)));
+        Map<HistoryTable, long[]> idRanges = new EnumMap<>(HistoryTable.class);
+        for (HistoryTable table : HistoryTable.values()) {
+            long[] idRange = jdbcTemplate.queryForObject(table.idRangeQuery(), (rs, rowNum) ->
+                    rs.getObject(1) == null ? null : new long[]{rs.getLong(1), rs.getLong(2)});
+            if (idRange != null) {
+                idRanges.put(table, idRange);
+            }
+        }
+        return new Baseline(jackpots, idRanges);
+    }
+
+    private Map<String, PoolTotals> scan(ForkJoinPool pool, HistoryTable table, Baseline baseline, HistoryScanTask.ScanContext context) {
+        long[] idRange = baseline.idRanges().get(table);
+        if (idRange == null) {
+            return new HashMap<>();
+        }
+        return pool.invoke(new HistoryScanTask(table, idRange[0], idRange[1] + 1, context));
+    }
+
+    private void recordProgress(HistoryTable table, long rows, AtomicLong tableRows, ReconciliationRun run) {
+        rowCounters.get(table).increment(rows);
+        tableRows.addAndGet(rows);
+        long after = run.addRowsScanned(rows);
+        long before = after - rows;
+        if (before / progressInterval != after / progressInterval) {
+            long elapsedNanos = Math.max(1, System.nanoTime() - run.getStartNanos());
+            log.info("Reconciliation {} progress: {} rows scanned ({} rows/s)",
+                    run.getId(), after, after * TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+        }
+    }
+
+    private List<PoolDiscrepancy> compare(Baseline baseline, Map<String, PoolTotals> totals, boolean repair) {
+        List<PoolDiscrepancy> discrepancies = new ArrayList<>();
+        for (JackpotPool jackpot : baseline.jackpots()) {
+            PoolTotals history = totals.getOrDefault(jackpot.id(), new PoolTotals());
+            BigDecimal expectedPool = history.expectedPool(jackpot.initialPool());
+            BigDecimal difference = jackpot.currentPool().subtract(expectedPool);
+            if (difference.abs().compareTo(tolerance) <= 0) {
+                continue;
+            }
+            // A pool restored from the journal has no history before the restart, so its history cannot be trusted
+            boolean restoredFromJournal = poolJournalRecovery.getRestoredJackpotIds().contains(jackpot.id());
+            boolean repaired = repair && !restoredFromJournal && repairPool(jackpot, history, baseline);
+            log.warn("Jackpot {} pool is {} but its history adds up to {}{}", jackpot.id(), jackpot.currentPool(), expectedPool,
+                    restoredFromJournal ? ", not repairing a pool restored from the journal" : repaired ? ", repaired" : "");
+            discrepancies.add(PoolDiscrepancy.builder()
+                    .jackpotId(jackpot.id())
+                    .currentPool(jackpot.currentPool())
+                    .expectedPool(expectedPool)
+                    .difference(difference)
+                    .repaired(repaired)
+                    .restoredFromJournal(restoredFromJournal)
+                    .build());
+        }
+        return discrepancies;
+    }
+
+    /**
+     * Locks the jackpot and adds the history written for it since the baseline before overwriting its pool.
+     *
+     * @return false if the pool matches its history once the new rows are included
+     */
+    private boolean repairPool(JackpotPool jackpot, PoolTotals history, Baseline baseline) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            BigDecimal currentPool = jdbcTemplate.queryForObject("SELECT current_pool FROM jackpots WHERE id = ? FOR UPDATE",
+                    BigDecimal.class, jackpot.id());
+            PoolTotals totals = new PoolTotals().merge(history);
+            for (HistoryTable table : HistoryTable.values()) {
+                RowCallbackHandler accumulator = rs -> table.addTo(totals, rs.getBigDecimal(2));
+                jdbcTemplate.query(table.tailQuery(), accumulator, jackpot.id(), baseline.lastId(table));
+            }
+            BigDecimal expectedPool = totals.expectedPool(jackpot.initialPool());
+            if (currentPool.subtract(expectedPool).abs().compareTo(tolerance) <= 0) {
+                return false;
+            }
+            jdbcTemplate.update("UPDATE jackpots SET current_pool = ? WHERE id = ?", expectedPool, jackpot.id());
+            poolJournal.recordAdjustment(jackpot.id(), expectedPool.subtract(currentPool), currentPool, expectedPool);
+            return true;
+        }));
+    }
+
+    private record JackpotPool(String id, BigDecimal initialPool, BigDecimal currentPool) {
+    }
+
+    private record Baseline(List<JackpotPool> jackpots, Map<HistoryTable, long[]> idRanges) {
+
+        long lastId(HistoryTable table) {
+            long[] idRange = idRanges.get(table);
+            return idRange == null ? 0 : idRange[1];
+        }
+    }
+}
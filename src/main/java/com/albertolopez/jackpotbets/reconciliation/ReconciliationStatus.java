@@ -0,0 +1,34 @@
+package com.albertolopez.jackpotbets.reconciliation;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.UUID;
+
+@Value
+@Builder
+public class ReconciliationStatus {
+    UUID runId;
+    State state;
+    boolean repair;
+    long rowsScanned;
+    long elapsedMillis;
+    long rowsPerSecond;
+    /**
+     * Only set once the run has completed.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    ReconciliationReport report;
+    /**
+     * Only set if the run has failed.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    String failure;
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,52 @@
+package com.albertolopez.jackpotbets.service;
+
+import com.albertolopez.jackpotbets.api.dto.BetEvaluationResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Bounded cache of completed bet evaluations. An evaluation never changes once its rewards are stored, so clients
+ * polling for the result of a bet are answered without touching the database. Entries keep the owner of the bet so
+ * that callers can still check who is asking.
+ */
+@Component
+public class BetEvaluationCache {
+
+    private static final String CACHE_NAME = "betEvaluations";
+
+    private final Cache<UUID, CachedEvaluation> cache;
+
+    public BetEvaluationCache(MeterRegistry meterRegistry,
+                              @Value("${jackpot.evaluation-cache.maximum-size}") long maximumSize,
+                              @Value("${jackpot.evaluation-cache.time-to-live}") Duration timeToLive) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+    }
+
+    public Optional<CachedEvaluation> get(UUID betId) {
+        return Optional.ofNullable(cache.getIfPresent(betId));
+    }
+
+    public void put(UUID betId, UUID userId, BetEvaluationResponse response) {
+        cache.put(betId, new CachedEvaluation(userId, response));
+    }
+
+    public record CachedEvaluation(UUID userId, BetEvaluationResponse response) {
+    }
+}
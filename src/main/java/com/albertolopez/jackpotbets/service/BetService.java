@@ -2,13 +2,17 @@ package com.albertolopez.jackpotbets.service;
 
 import com.albertolopez.jackpotbets.api.dto.BetRequest;
 import com.albertolopez.jackpotbets.api.dto.BetEvaluationResponse;
+import com.albertolopez.jackpotbets.api.dto.TierEvaluationResponse;
 import com.albertolopez.jackpotbets.domain.Bet;
 import com.albertolopez.jackpotbets.domain.JackpotReward;
+import com.albertolopez.jackpotbets.draw.DrawSource;
 import com.albertolopez.jackpotbets.exception.BetNotFoundException;
+import com.albertolopez.jackpotbets.journal.PoolJournal;
 import com.albertolopez.jackpotbets.persistence.entities.BetEntity;
 import com.albertolopez.jackpotbets.persistence.entities.JackpotEntity;
 import com.albertolopez.jackpotbets.persistence.entities.JackpotRewardEntity;
 import com.albertolopez.jackpotbets.persistence.entities.OutboxMessageEntity;
+import com.albertolopez.jackpotbets.persistence.repository.BetEvaluationView;
 import com.albertolopez.jackpotbets.persistence.repository.BetRepository;
 import com.albertolopez.jackpotbets.persistence.repository.JackpotRepository;
 import com.albertolopez.jackpotbets.persistence.repository.JackpotRewardRepository;
@@ -17,25 +21,33 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Clock;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class BetService {
 
-    public static final double MAX_PROBABILITY = 1.0;
-
     private final BetRepository betRepository;
     private final OutboxRepository outboxRepository;
     private final JackpotRepository jackpotRepository;
     private final JackpotRewardRepository jackpotRewardRepository;
+    private final PoolJournal poolJournal;
+    private final DrawSource drawSource;
+    private final Clock clock;
+    private final BetEvaluationCache betEvaluationCache;
+    private final TransactionTemplate transactionTemplate;
 
     @Transactional
     public void recordBetAndPublish(UUID userId, BetRequest request) {
@@ -48,8 +60,9 @@ public class BetService {
                 .betId(request.getBetId())
                 .userId(userId)
                 .jackpotId(request.getJackpotId())
+                .jackpotGroupId(request.getJackpotGroupId())
                 .betAmount(request.getBetAmount())
-                .createdAt(Instant.now())
+                .createdAt(Instant.now(clock))
                 .build();
 
         BetEntity betEntity = new BetEntity(bet);
@@ -57,87 +70,114 @@ public class BetService {
         outboxRepository.save(new OutboxMessageEntity(
                 bet.getBetId(),
                 bet.getJackpotId(),
+                bet.getJackpotGroupId(),
                 bet.getUserId(),
                 bet.getBetAmount(),
                 "jackpot-bets",
-                Instant.now()));
+                Instant.now(clock)));
     }
 
-    @Transactional
+    /**
+     * Completed evaluations are served from the {@link BetEvaluationCache}. Otherwise the bet, its jackpots and any
+     * existing rewards are read with a single query, and the tiers without a reward yet are drawn.
+     */
     public BetEvaluationResponse evaluateBet(UUID betId, UUID userId) {
-        BetEntity betEntity = betRepository.findById(betId.toString())
-                .orElseThrow(() -> new BetNotFoundException("Bet not found with id: " + betId));
-
-        if (!betEntity.getUserId().equals(userId.toString())) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Bet does not belong to this user");
+        Optional<BetEvaluationCache.CachedEvaluation> cached = betEvaluationCache.get(betId);
+        if (cached.isPresent()) {
+            checkOwner(cached.get().userId().toString(), userId);
+            return cached.get().response();
         }
+        BetEvaluationResponse response = transactionTemplate.execute(status -> evaluateBetInTransaction(betId, userId));
+        // The rewards are committed by now, so the evaluation can no longer change
+        betEvaluationCache.put(betId, userId, response);
+        return response;
+    }
 
-        JackpotEntity jackpotEntity = jackpotRepository.findById(betEntity.getJackpotId())
-                .orElseThrow(() -> new IllegalStateException("Jackpot not found for id: " + betEntity.getJackpotId()));
+    private BetEvaluationResponse evaluateBetInTransaction(UUID betId, UUID userId) {
+        List<BetEvaluationView> views = betRepository.findEvaluationViewsByBetId(betId.toString());
+        if (views.isEmpty()) {
+            throw new BetNotFoundException("Bet not found with id: " + betId);
+        }
 
-        Optional<JackpotRewardEntity> existingReward = jackpotRewardRepository.findByBetId(betId.toString());
-        return existingReward
-                .map(jackpotReward -> evaluationResponseForExistingReward(betId, jackpotReward))
-                .orElseGet(() -> newEvaluationResponse(betId, userId, jackpotEntity));
-    }
+        checkOwner(views.get(0).getUserId(), userId);
 
-    private BetEvaluationResponse newEvaluationResponse(UUID betId, UUID userId, JackpotEntity jackpotEntity) {
-        double chance = calculateWinChance(jackpotEntity);
-        double randomNumber = new Random().nextDouble();
-        boolean jackpotWon = randomNumber < chance;
-        JackpotReward reward = JackpotReward.builder()
-                .betId(betId)
-                .userId(userId)
-                .jackpotId(UUID.fromString(jackpotEntity.getId()))
-                .jackpotRewardAmount(jackpotWon ? jackpotEntity.getCurrentPool() : BigDecimal.ZERO)
-                .createdAt(Instant.now())
-                .build();
+        if (views.get(0).getJackpotId() == null) {
+            throw new IllegalStateException("No jackpot found for id: " + views.get(0).getBetJackpotId()
+                    + " or group id: " + views.get(0).getJackpotGroupId());
+        }
 
-        if (jackpotWon) {
-            jackpotEntity.setCurrentPool(jackpotEntity.getInitialPool());
-            jackpotRepository.save(jackpotEntity);
+        // The pools drawn against are locked until commit, so a reset is journaled in the order it is committed
+        Map<String, JackpotEntity> jackpots = lockUnevaluatedJackpots(views);
+        Instant createdAt = Instant.now(clock);
+        List<JackpotRewardEntity> newRewards = new ArrayList<>();
+        List<TierEvaluationResponse> tiers = new ArrayList<>(views.size());
+
+        // Every tier is drawn in one pass, each against its own draw for the bet
+        for (int tier = 0; tier < views.size(); tier++) {
+            BetEvaluationView view = views.get(tier);
+            if (view.isEvaluated()) {
+                tiers.add(tierResponse(view.getJackpotId(), view.getRewardAmount()));
+                continue;
+            }
+
+            JackpotEntity jackpot = jackpots.get(view.getJackpotId());
+            BigDecimal currentPool = jackpot.getCurrentPool();
+            double chance = jackpot.rules().winChance(currentPool);
+            double randomNumber = drawSource.draw(betId, tier);
+            boolean jackpotWon = randomNumber < chance;
+            JackpotReward reward = JackpotReward.builder()
+                    .betId(betId)
+                    .userId(userId)
+                    .jackpotId(UUID.fromString(view.getJackpotId()))
+                    .jackpotRewardAmount(jackpotWon ? currentPool : BigDecimal.ZERO)
+                    .createdAt(createdAt)
+                    .build();
+
+            if (jackpotWon) {
+                jackpot.setCurrentPool(jackpot.getInitialPool());
+                poolJournal.recordReset(jackpot.getId(), reward.getJackpotRewardAmount(), currentPool, jackpot.getCurrentPool());
+            }
+            newRewards.add(new JackpotRewardEntity(reward));
+            tiers.add(tierResponse(view.getJackpotId(), reward.getJackpotRewardAmount()));
         }
-        jackpotRewardRepository.save(new JackpotRewardEntity(reward));
 
-        return BetEvaluationResponse.builder()
-                .betId(betId.toString())
-                .jackpotWon(jackpotWon)
-                .rewardAmount(reward.getJackpotRewardAmount())
-                .build();
+        jackpotRepository.saveAll(jackpots.values());
+        jackpotRewardRepository.saveAll(newRewards);
+        return evaluationResponse(betId, tiers, views.get(0).getJackpotGroupId() != null);
     }
 
-    private static BetEvaluationResponse evaluationResponseForExistingReward(UUID betId, JackpotRewardEntity existingReward) {
-        return BetEvaluationResponse.builder()
-                .betId(betId.toString())
-                .jackpotWon(existingReward.getJackpotRewardAmount().compareTo(BigDecimal.ZERO) > 0)
-                .rewardAmount(existingReward.getJackpotRewardAmount())
-                .build();
+    private static void checkOwner(String betUserId, UUID userId) {
+        if (!betUserId.equals(userId.toString())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Bet does not belong to this user");
+        }
     }
 
-    private double calculateWinChance(JackpotEntity jackpot) {
-        return switch (jackpot.getWinChanceType()) {
-            case FIXED_CHANCE -> fixedChance(jackpot);
-            case VARIABLE_CHANCE -> variableChance(jackpot);
-        };
+    private Map<String, JackpotEntity> lockUnevaluatedJackpots(List<BetEvaluationView> views) {
+        List<String> jackpotIds = views.stream()
+                .filter(view -> !view.isEvaluated())
+                .map(BetEvaluationView::getJackpotId)
+                .toList();
+        if (jackpotIds.isEmpty()) {
+            return Map.of();
+        }
+        return jackpotRepository.findAllByIdInOrderByIdAsc(jackpotIds).stream()
+                .collect(Collectors.toMap(JackpotEntity::getId, Function.identity()));
     }
 
-    private static double fixedChance(JackpotEntity jackpot) {
-        return jackpot.getWinChancePercentage().doubleValue();
+    private static TierEvaluationResponse tierResponse(String jackpotId, BigDecimal rewardAmount) {
+        return TierEvaluationResponse.builder()
+                .jackpotId(jackpotId)
+                .jackpotWon(rewardAmount.compareTo(BigDecimal.ZERO) > 0)
+                .rewardAmount(rewardAmount)
+                .build();
     }
 
-    private static double variableChance(JackpotEntity jackpot) {
-        BigDecimal initialChance = jackpot.getWinChanceInitialChance();
-        BigDecimal increaseRate = jackpot.getWinChanceIncreaseRate();
-        BigDecimal currentPool = jackpot.getCurrentPool();
-        BigDecimal limit = jackpot.getWinChanceLimit();
-
-        if (currentPool.compareTo(limit) >= 0) {
-            return MAX_PROBABILITY;
-        }
-
-        BigDecimal increasedChance = currentPool.divide(limit, RoundingMode.HALF_UP).multiply(increaseRate);
-        double chance = initialChance.add(increasedChance).doubleValue();
-
-        return Math.min(MAX_PROBABILITY, chance);
+    private static BetEvaluationResponse evaluationResponse(UUID betId, List<TierEvaluationResponse> tiers, boolean groupBet) {
+        return BetEvaluationResponse.builder()
+                .betId(betId.toString())
+                .jackpotWon(tiers.stream().anyMatch(TierEvaluationResponse::isJackpotWon))
+                .rewardAmount(tiers.stream().map(TierEvaluationResponse::getRewardAmount).reduce(BigDecimal.ZERO, BigDecimal::add))
+                .tiers(groupBet ? List.copyOf(tiers) : null)
+                .build();
     }
 }
@@ -1,7 +1,8 @@
 package com.albertolopez.jackpotbets.service;
 
 import com.albertolopez.jackpotbets.domain.JackpotContribution;
-import com.albertolopez.jackpotbets.persistence.entities.JackpotContributionEntity;
+import com.albertolopez.jackpotbets.domain.JackpotRules;
+import com.albertolopez.jackpotbets.journal.PoolJournal;
 import com.albertolopez.jackpotbets.persistence.entities.JackpotEntity;
 import com.albertolopez.jackpotbets.persistence.repository.JackpotContributionRepository;
 import com.albertolopez.jackpotbets.persistence.repository.JackpotRepository;
@@ -12,67 +13,56 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Clock;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
-import static java.math.RoundingMode.HALF_UP;
-
 @Service
 @RequiredArgsConstructor
 public class KafkaConsumerService {
 
     private final JackpotRepository jackpotRepository;
     private final JackpotContributionRepository contributionRepository;
+    private final PoolJournal poolJournal;
+    private final Clock clock;
 
     @KafkaListener(topics = "${jackpot.kafka-topic}", groupId = "${spring.kafka.consumer.group-id}")
     @Transactional
     public void listen(BetMessage betMessage) {
-        JackpotEntity jackpot = jackpotRepository.findById(betMessage.getJackpotId())
-                .orElseThrow(() -> new IllegalStateException("Jackpot not found for id: " + betMessage.getJackpotId()));
-
-        BigDecimal contributionAmount = calculateContribution(jackpot, betMessage.getBetAmount());
-        jackpot.setCurrentPool(jackpot.getCurrentPool().add(contributionAmount));
-        jackpotRepository.save(jackpot);
-
-        JackpotContribution contribution = JackpotContribution.builder()
-                .betId(UUID.fromString(betMessage.getBetId()))
-                .userId(UUID.fromString(betMessage.getUserId()))
-                .jackpotId(jackpot.getId())
-                .stakeAmount(BigDecimal.valueOf(betMessage.getBetAmount()))
-                .contributionAmount(contributionAmount)
-                .currentJackpotAmount(jackpot.getCurrentPool())
-                .createdAt(Instant.now())
-                .build();
-
-        contributionRepository.save(new JackpotContributionEntity(contribution));
-    }
+        List<JackpotEntity> jackpots = jackpotRepository.findAllTargetedByForUpdate(betMessage.getJackpotId(), betMessage.getJackpotGroupId());
+        if (jackpots.isEmpty()) {
+            throw new IllegalStateException("No jackpot found for id: " + betMessage.getJackpotId()
+                    + " or group id: " + betMessage.getJackpotGroupId());
+        }
 
-    private BigDecimal calculateContribution(JackpotEntity jackpot, double betAmount) {
-        BigDecimal betAmt = BigDecimal.valueOf(betAmount);
-        return switch (jackpot.getContributionType()) {
-            case FIXED_CONTRIBUTION -> fixedContribution(jackpot, betAmt);
-            case VARIABLE_CONTRIBUTION -> variableContribution(jackpot, betAmt);
-        };
-    }
+        UUID betId = UUID.fromString(betMessage.getBetId());
+        UUID userId = UUID.fromString(betMessage.getUserId());
+        BigDecimal stakeAmount = BigDecimal.valueOf(betMessage.getBetAmount());
+        Instant createdAt = Instant.now(clock);
+        List<JackpotContribution> contributions = new ArrayList<>(jackpots.size());
 
-    private static BigDecimal fixedContribution(JackpotEntity jackpot, BigDecimal betAmt) {
-        return betAmt.multiply(jackpot.getContributionPercentage());
-    }
+        for (JackpotEntity jackpot : jackpots) {
+            JackpotRules rules = jackpot.rules();
+            BigDecimal previousPool = jackpot.getCurrentPool();
+            BigDecimal contributionAmount = rules.contribution(stakeAmount, previousPool);
+            jackpot.setCurrentPool(rules.addContribution(previousPool, contributionAmount));
+            // The jackpot stays locked until commit, which is when the journal appends the event
+            poolJournal.recordContribution(jackpot.getId(), contributionAmount, previousPool, jackpot.getCurrentPool());
 
-    private static BigDecimal variableContribution(JackpotEntity jackpot, BigDecimal betAmt) {
-        BigDecimal currentPool = jackpot.getCurrentPool();
-        BigDecimal threshold = jackpot.getContributionThreshold();
-        BigDecimal decreaseRate = jackpot.getContributionDecreaseRate();
-        BigDecimal initialPercentage = jackpot.getContributionPercentage();
-
-        if (currentPool.compareTo(threshold) >= 0) {
-            return BigDecimal.ZERO;
+            contributions.add(JackpotContribution.builder()
+                    .betId(betId)
+                    .userId(userId)
+                    .jackpotId(jackpot.getId())
+                    .stakeAmount(stakeAmount)
+                    .contributionAmount(contributionAmount)
+                    .currentJackpotAmount(jackpot.getCurrentPool())
+                    .createdAt(createdAt)
+                    .build());
         }
 
-        BigDecimal contributionPercentage = initialPercentage.subtract(
-                (currentPool.divide(threshold, HALF_UP).multiply(decreaseRate))
-        );
-
-        return betAmt.multiply(contributionPercentage);
+        jackpotRepository.saveAll(jackpots);
+        contributionRepository.insertAll(contributions);
     }
-}
\ No newline at end of file
+}
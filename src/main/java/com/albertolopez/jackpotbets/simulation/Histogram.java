@@ -0,0 +1,44 @@
+package com.albertolopez.jackpotbets.simulation;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts grouped into contiguous buckets, each covering {@code [from, to)}. Only the buckets between the first and
+ * the last non-empty one are kept.
+ */
+@Value
+public class Histogram {
+
+    List<Bucket> buckets;
+
+    @Value
+    public static class Bucket {
+        double from;
+        double to;
+        long count;
+    }
+
+    static Histogram of(long[] counts, BucketBounds bounds) {
+        int first = 0;
+        while (first < counts.length && counts[first] == 0) {
+            first++;
+        }
+        int last = counts.length - 1;
+        while (last > first && counts[last] == 0) {
+            last--;
+        }
+        List<Bucket> buckets = new ArrayList<>();
+        for (int i = first; i <= last; i++) {
+            buckets.add(new Bucket(bounds.lowerBound(i), bounds.lowerBound(i + 1), counts[i]));
+        }
+        return new Histogram(buckets);
+    }
+
+    @FunctionalInterface
+    interface BucketBounds {
+        double lowerBound(int bucket);
+    }
+}
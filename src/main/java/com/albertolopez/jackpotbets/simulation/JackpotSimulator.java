@@ -0,0 +1,122 @@
+package com.albertolopez.jackpotbets.simulation;
+
+import com.albertolopez.jackpotbets.domain.JackpotRules;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monte Carlo simulation of a jackpot configuration using the production {@link JackpotRules}.
+ * <p>
+ * The bets are split evenly across threads. Each thread simulates its own jackpot from its initial pool with an
+ * independent {@link SplittableRandom} stream split from the seed, so a run is reproducible for a given seed and
+ * parallelism. Every bet contributes to the pool and is then drawn against the win chance of the resulting pool,
+ * in the same order as the Kafka consumer and the evaluation endpoint apply them.
+ */
+public class JackpotSimulator {
+
+    /**
+     * Runs the simulation on a thread pool of its own, sized to the parallelism of the parameters.
+     */
+    public SimulationResult simulate(SimulationParameters parameters) {
+        ExecutorService executor = Executors.newFixedThreadPool(parameters.getParallelism());
+        try {
+            return simulate(parameters, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the simulation on the given executor, split into as many workers as the parallelism of the parameters.
+     */
+    public SimulationResult simulate(SimulationParameters parameters, ExecutorService executor) {
+        long startNanos = System.nanoTime();
+        int parallelism = parameters.getParallelism();
+        SplittableRandom root = new SplittableRandom(parameters.getSeed());
+
+        List<Callable<SimulationTally>> workers = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            long bets = parameters.getNumberOfBets() / parallelism + (i < parameters.getNumberOfBets() % parallelism ? 1 : 0);
+            SplittableRandom random = root.split();
+            workers.add(() -> simulateJackpot(parameters.getRules(), parameters.getBetAmount(), bets, random));
+        }
+
+        SimulationTally tally = new SimulationTally();
+        try {
+            for (Future<SimulationTally> result : executor.invokeAll(workers)) {
+                tally.merge(result.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        }
+
+        return result(parameters, tally, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * The hot loop. Apart from the arithmetic inside {@link JackpotRules} it only touches primitives.
+     */
+    private static SimulationTally simulateJackpot(JackpotRules rules, BigDecimal betAmount, long bets, SplittableRandom random) {
+        SimulationTally tally = new SimulationTally();
+        BigDecimal initialPool = rules.getInitialPool().setScale(JackpotRules.POOL_SCALE, RoundingMode.HALF_UP);
+        double initialPoolValue = initialPool.doubleValue();
+        BigDecimal pool = initialPool;
+        long betsSinceWin = 0;
+
+        for (long i = 0; i < bets; i++) {
+            pool = rules.addContribution(pool, rules.contribution(betAmount, pool));
+            betsSinceWin++;
+            if (random.nextDouble() < rules.winChance(pool)) {
+                tally.recordWin(pool.doubleValue(), initialPoolValue, betsSinceWin);
+                pool = initialPool;
+                betsSinceWin = 0;
+            }
+        }
+
+        tally.bets = bets;
+        // Everything in the pool beyond the initial pool was contributed, whether it was paid out or is still there
+        tally.contributed = tally.paidOut - tally.wins * initialPoolValue + pool.doubleValue() - initialPoolValue;
+        return tally;
+    }
+
+    private static SimulationResult result(SimulationParameters parameters, SimulationTally tally, long elapsedNanos) {
+        double initialPool = parameters.getRules().getInitialPool().doubleValue();
+        double totalStaked = parameters.getBetAmount().doubleValue() * tally.bets;
+        double meanBetsToWin = tally.wins == 0 ? 0 : (double) tally.betsInWinningCycles / tally.wins;
+        Double betsPerSecond = parameters.getBetsPerSecond();
+
+        return SimulationResult.builder()
+                .numberOfBets(tally.bets)
+                .parallelism(parameters.getParallelism())
+                .seed(parameters.getSeed())
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .simulatedBetsPerSecond(elapsedNanos == 0 ? 0 : (long) (tally.bets / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1))))
+                .wins(tally.wins)
+                .totalStaked(totalStaked)
+                .totalContributed(tally.contributed)
+                .totalPaidOut(tally.paidOut)
+                .seedFunding(tally.wins * initialPool)
+                .returnToPlayer(totalStaked == 0 ? 0 : tally.paidOut / totalStaked)
+                .contributionRate(totalStaked == 0 ? 0 : tally.contributed / totalStaked)
+                .meanPayout(tally.wins == 0 ? 0 : tally.paidOut / tally.wins)
+                .meanBetsToWin(meanBetsToWin)
+                .meanSecondsToWin(betsPerSecond == null || tally.wins == 0 ? null : meanBetsToWin / betsPerSecond)
+                .payoutHistogram(Histogram.of(tally.payoutHistogram,
+                        bucket -> SimulationTally.payoutLowerBound(bucket, initialPool)))
+                .betsToWinHistogram(Histogram.of(tally.betsToWinHistogram, SimulationTally::betsToWinLowerBound))
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.albertolopez.jackpotbets.simulation;
+
+import com.albertolopez.jackpotbets.domain.ContributionType;
+import com.albertolopez.jackpotbets.domain.JackpotRules;
+import com.albertolopez.jackpotbets.domain.WinChanceType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Runs a simulation from the command line, without starting the application:
+ * <pre>
+ * ./gradlew simulate --args="--initial-pool=1000 --contribution-type=FIXED_CONTRIBUTION --contribution-percentage=0.05
+ *     --win-chance-type=FIXED_CHANCE --win-chance-percentage=0.01 --bet-amount=10 --bets=1000000000"
+ * </pre>
+ * The result is printed as JSON.
+ */
+public class SimulationCli {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+
+        JackpotRules rules = JackpotRules.builder()
+                .initialPool(required(options, "initial-pool", BigDecimal::new))
+                .contributionType(required(options, "contribution-type", ContributionType::valueOf))
+                .contributionPercentage(optional(options, "contribution-percentage", BigDecimal::new))
+                .contributionDecreaseRate(optional(options, "contribution-decrease-rate", BigDecimal::new))
+                .contributionThreshold(optional(options, "contribution-threshold", BigDecimal::new))
+                .winChanceType(required(options, "win-chance-type", WinChanceType::valueOf))
+                .winChancePercentage(optional(options, "win-chance-percentage", BigDecimal::new))
+                .winChanceInitialChance(optional(options, "win-chance-initial-chance", BigDecimal::new))
+                .winChanceLimit(optional(options, "win-chance-limit", BigDecimal::new))
+                .winChanceIncreaseRate(optional(options, "win-chance-increase-rate", BigDecimal::new))
+                .build();
+
+        Integer threads = optional(options, "threads", Integer::valueOf);
+        Long seed = optional(options, "seed", Long::valueOf);
+        SimulationParameters parameters = SimulationParameters.builder()
+                .rules(rules)
+                .betAmount(required(options, "bet-amount", BigDecimal::new))
+                .numberOfBets(required(options, "bets", Long::valueOf))
+                .parallelism(threads != null ? threads : Runtime.getRuntime().availableProcessors())
+                .seed(seed != null ? seed : System.nanoTime())
+                .betsPerSecond(optional(options, "bets-per-second", Double::valueOf))
+                .build();
+
+        SimulationResult result = new JackpotSimulator().simulate(parameters);
+        System.out.println(new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(result));
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static <T> T required(Map<String, String> options, String name, Function<String, T> parser) {
+        T value = optional(options, name, parser);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing required option --" + name);
+        }
+        return value;
+    }
+
+    private static <T> T optional(Map<String, String> options, String name, Function<String, T> parser) {
+        String value = options.get(name);
+        return value == null ? null : parser.apply(value);
+    }
+}
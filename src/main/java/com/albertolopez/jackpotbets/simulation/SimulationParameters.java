@@ -0,0 +1,21 @@
+package com.albertolopez.jackpotbets.simulation;
+
+import com.albertolopez.jackpotbets.domain.JackpotRules;
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+@Value
+@Builder
+public class SimulationParameters {
+    JackpotRules rules;
+    BigDecimal betAmount;
+    long numberOfBets;
+    int parallelism;
+    long seed;
+    /**
+     * Optional rate at which bets are placed, used to turn the mean number of bets between wins into a time.
+     */
+    Double betsPerSecond;
+}
@@ -0,0 +1,37 @@
+package com.albertolopez.jackpotbets.simulation;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class SimulationResult {
+    long numberOfBets;
+    int parallelism;
+    long seed;
+    long durationMillis;
+    /**
+     * Throughput of the simulator itself, not to be confused with the assumed rate at which bets are placed.
+     */
+    long simulatedBetsPerSecond;
+
+    long wins;
+    double totalStaked;
+    double totalContributed;
+    double totalPaidOut;
+    /**
+     * Money put into the pool by the operator, i.e. the initial pool restored after every win.
+     */
+    double seedFunding;
+    /**
+     * Share of the stakes paid back to the players as jackpot rewards.
+     */
+    double returnToPlayer;
+    double contributionRate;
+    double meanPayout;
+    double meanBetsToWin;
+    Double meanSecondsToWin;
+
+    Histogram payoutHistogram;
+    Histogram betsToWinHistogram;
+}
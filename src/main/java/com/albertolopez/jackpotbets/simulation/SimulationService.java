@@ -0,0 +1,74 @@
+package com.albertolopez.jackpotbets.simulation;
+
+import com.albertolopez.jackpotbets.api.dto.SimulationRequest;
+import com.albertolopez.jackpotbets.persistence.entities.JackpotEntity;
+import com.albertolopez.jackpotbets.persistence.repository.JackpotRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs simulations requested through the API on a single shared pool of {@code jackpot.simulation.parallelism}
+ * threads, one simulation at a time, so they cannot take over the cores serving bets.
+ */
+@Service
+public class SimulationService {
+
+    private final JackpotRepository jackpotRepository;
+    private final JackpotSimulator jackpotSimulator = new JackpotSimulator();
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final long maxBets;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public SimulationService(JackpotRepository jackpotRepository,
+                             @Value("${jackpot.simulation.parallelism}") int parallelism,
+                             @Value("${jackpot.simulation.max-bets}") long maxBets) {
+        this.jackpotRepository = jackpotRepository;
+        this.parallelism = parallelism;
+        this.maxBets = maxBets;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "jackpot-simulation-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SimulationResult simulate(SimulationRequest request) {
+        if (request.getNumberOfBets() > maxBets) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxBets + " bets can be simulated");
+        }
+        JackpotEntity jackpot = jackpotRepository.findById(request.getJackpotId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Jackpot not found for id: " + request.getJackpotId()));
+
+        if (!running.compareAndSet(false, true)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A simulation is already running");
+        }
+        try {
+            return jackpotSimulator.simulate(SimulationParameters.builder()
+                    .rules(jackpot.rules())
+                    .betAmount(request.getBetAmount())
+                    .numberOfBets(request.getNumberOfBets())
+                    .parallelism(parallelism)
+                    .seed(request.getSeed() != null ? request.getSeed() : ThreadLocalRandom.current().nextLong())
+                    .betsPerSecond(request.getBetsPerSecond())
+                    .build(), executor);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,65 @@
+package com.albertolopez.jackpotbets.simulation;
+
+/**
+ * Primitive accumulators filled by one simulation thread and merged once all threads have finished.
+ */
+class SimulationTally {
+
+    static final int BUCKETS = 64;
+    /**
+     * Payouts are bucketed on a log scale relative to the initial pool, with this many buckets per doubling.
+     */
+    static final int PAYOUT_BUCKETS_PER_DOUBLING = 4;
+
+    private static final double INVERSE_LN_2 = 1 / Math.log(2);
+
+    long bets;
+    long wins;
+    long betsInWinningCycles;
+    double paidOut;
+    double contributed;
+    final long[] payoutHistogram = new long[BUCKETS];
+    final long[] betsToWinHistogram = new long[BUCKETS];
+
+    void recordWin(double payout, double initialPool, long betsToWin) {
+        wins++;
+        paidOut += payout;
+        betsInWinningCycles += betsToWin;
+        payoutHistogram[payoutBucket(payout, initialPool)]++;
+        betsToWinHistogram[63 - Long.numberOfLeadingZeros(betsToWin)]++;
+    }
+
+    SimulationTally merge(SimulationTally other) {
+        bets += other.bets;
+        wins += other.wins;
+        betsInWinningCycles += other.betsInWinningCycles;
+        paidOut += other.paidOut;
+        contributed += other.contributed;
+        for (int i = 0; i < BUCKETS; i++) {
+            payoutHistogram[i] += other.payoutHistogram[i];
+            betsToWinHistogram[i] += other.betsToWinHistogram[i];
+        }
+        return this;
+    }
+
+    static double payoutLowerBound(int bucket, double initialPool) {
+        return payoutScale(initialPool) * Math.pow(2, (double) bucket / PAYOUT_BUCKETS_PER_DOUBLING);
+    }
+
+    static double betsToWinLowerBound(int bucket) {
+        return Math.pow(2, bucket);
+    }
+
+    private static int payoutBucket(double payout, double initialPool) {
+        double ratio = payout / payoutScale(initialPool);
+        if (ratio <= 1) {
+            return 0;
+        }
+        int bucket = (int) (Math.log(ratio) * INVERSE_LN_2 * PAYOUT_BUCKETS_PER_DOUBLING);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    private static double payoutScale(double initialPool) {
+        return initialPool > 0 ? initialPool : 1;
+    }
+}
@@ -0,0 +1,59 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bet on a jackpot group has one contribution and one reward per tier, so both tables are now unique on
+ * {@code (bet_id, jackpot_id)} instead of {@code bet_id}. The constraints created by V1 have generated names, which
+ * is why this migration looks them up instead of being plain SQL. The foreign key on {@code bet_id} is dropped and
+ * recreated too, since it may be backed by the unique index being dropped.
+ */
+public class V3__per_tier_contributions_and_rewards extends BaseJavaMigration {
+
+    private static final String BET_ID_CONSTRAINTS = """
+            SELECT tc.constraint_name
+            FROM information_schema.table_constraints tc
+            JOIN information_schema.key_column_usage kcu
+              ON kcu.constraint_schema = tc.constraint_schema AND kcu.constraint_name = tc.constraint_name
+            WHERE UPPER(tc.table_name) = ?
+              AND UPPER(kcu.column_name) = 'BET_ID'
+              AND tc.constraint_type IN ('UNIQUE', 'FOREIGN KEY')
+            ORDER BY CASE tc.constraint_type WHEN 'FOREIGN KEY' THEN 0 ELSE 1 END
+            """;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        for (String table : List.of("jackpot_contributions", "jackpot_rewards")) {
+            try (Statement statement = connection.createStatement()) {
+                for (String constraint : betIdConstraints(connection, table)) {
+                    statement.execute("ALTER TABLE " + table + " DROP CONSTRAINT \"" + constraint + "\"");
+                }
+                statement.execute("ALTER TABLE " + table + " ADD CONSTRAINT uk_" + table + "_bet_jackpot UNIQUE (bet_id, jackpot_id)");
+                statement.execute("ALTER TABLE " + table + " ADD CONSTRAINT fk_" + table + "_bet FOREIGN KEY (bet_id) REFERENCES bets (bet_id)");
+            }
+        }
+    }
+
+    private static List<String> betIdConstraints(Connection connection, String table) throws SQLException {
+        List<String> constraints = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(BET_ID_CONSTRAINTS)) {
+            statement.setString(1, table.toUpperCase());
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    constraints.add(rs.getString(1));
+                }
+            }
+        }
+        return constraints;
+    }
+}
@@ -0,0 +1,33 @@
+CREATE TABLE jackpot_groups
+(
+    id   VARCHAR(36) PRIMARY KEY,
+    name VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE jackpot_group_members
+(
+    group_id   VARCHAR(36) NOT NULL,
+    jackpot_id VARCHAR(36) NOT NULL,
+    tier       INT         NOT NULL,
+    PRIMARY KEY (group_id, jackpot_id),
+    UNIQUE (group_id, tier),
+    FOREIGN KEY (group_id) REFERENCES jackpot_groups (id),
+    FOREIGN KEY (jackpot_id) REFERENCES jackpots (id)
+);
+
+-- A bet targets either a single jackpot or a group of jackpots
+ALTER TABLE bets ALTER COLUMN jackpot_id DROP NOT NULL;
+ALTER TABLE bets ADD COLUMN jackpot_group_id VARCHAR(36);
+ALTER TABLE bets ADD FOREIGN KEY (jackpot_group_id) REFERENCES jackpot_groups (id);
+
+ALTER TABLE outbox_messages ALTER COLUMN jackpot_id DROP NOT NULL;
+ALTER TABLE outbox_messages ADD COLUMN jackpot_group_id VARCHAR(36);
+ALTER TABLE outbox_messages ADD FOREIGN KEY (jackpot_group_id) REFERENCES jackpot_groups (id);
+
+-- Initial data for jackpot groups
+INSERT INTO jackpot_groups (id, name)
+VALUES ('3f1c2a7e-6b4d-4c8e-9a51-2d7e8f0b9c34', 'Fixed and variable tiers');
+
+INSERT INTO jackpot_group_members (group_id, jackpot_id, tier)
+VALUES ('3f1c2a7e-6b4d-4c8e-9a51-2d7e8f0b9c34', '8d75dbf1-e50e-42f5-91b6-829c10f0d275', 1),
+       ('3f1c2a7e-6b4d-4c8e-9a51-2d7e8f0b9c34', 'fab085d6-4f0b-47ec-ac7a-5a7293d0d48f', 2);
@@ -0,0 +1,67 @@
+package com.albertolopez.jackpotbets.config
+
+import com.albertolopez.jackpotbets.draw.DrawSource
+import com.albertolopez.jackpotbets.draw.SecureBufferedDrawSource
+import com.albertolopez.jackpotbets.draw.SeededDrawSource
+import com.albertolopez.jackpotbets.draw.SplittableDrawSource
+import com.albertolopez.jackpotbets.draw.ThreadLocalDrawSource
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.boot.convert.ApplicationConversionService
+import org.springframework.boot.test.context.runner.ApplicationContextRunner
+import spock.lang.Specification
+
+class DrawConfigSpec extends Specification {
+
+    // Property values are bound with the same conversion service as in the running application
+    ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer { it.beanFactory.conversionService = ApplicationConversionService.sharedInstance }
+            .withUserConfiguration(DrawConfig)
+            .withBean(SimpleMeterRegistry)
+            .withPropertyValues(
+                    "jackpot.draw.seed=42",
+                    "jackpot.draw.secure.block-size=16",
+                    "jackpot.draw.secure.buffered-blocks=2")
+
+    def "should create a #type.simpleName for jackpot.draw.source=#source"() {
+        expect:
+        contextRunner.withPropertyValues("jackpot.draw.source=" + source).run { context ->
+            assert context.getBean(DrawSource).class == type
+        }
+
+        where:
+        source         || type
+        "thread-local" || ThreadLocalDrawSource
+        "splittable"   || SplittableDrawSource
+        "secure"       || SecureBufferedDrawSource
+        "seeded"       || SeededDrawSource
+        "SEEDED"       || SeededDrawSource
+    }
+
+    def "should seed the seeded source from jackpot.draw.seed"() {
+        given:
+        def betId = UUID.randomUUID()
+
+        expect:
+        contextRunner.withPropertyValues("jackpot.draw.source=seeded").run { context ->
+            assert context.getBean(DrawSource).draw(betId, 0) == new SeededDrawSource(42).draw(betId, 0)
+        }
+    }
+
+    def "should expose the fallback blocks of the secure source as a metric"() {
+        expect:
+        contextRunner.withPropertyValues("jackpot.draw.source=secure").run { context ->
+            def drawSource = context.getBean(SecureBufferedDrawSource)
+            def meterRegistry = context.getBean(MeterRegistry)
+            assert meterRegistry.get("jackpot.draw.secure.fallback.blocks").functionCounter().count() == drawSource.fallbackBlocks
+            assert meterRegistry.get("jackpot.draw.secure.buffered.blocks").gauge() != null
+        }
+    }
+
+    def "should fail to start with an unknown draw source"() {
+        expect:
+        contextRunner.withPropertyValues("jackpot.draw.source=dice").run { context ->
+            assert context.startupFailure != null
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.albertolopez.jackpotbets.domain
+
+import spock.lang.Specification
+
+class JackpotRulesSpec extends Specification {
+
+    // The seeded jackpots of V1__initial_schema.sql
+    static final JackpotRules FIXED = JackpotRules.builder()
+            .initialPool(1000.00)
+            .contributionType(ContributionType.FIXED_CONTRIBUTION)
+            .contributionPercentage(0.05)
+            .winChanceType(WinChanceType.FIXED_CHANCE)
+            .winChancePercentage(0.01)
+            .build()
+
+    static final JackpotRules VARIABLE = JackpotRules.builder()
+            .initialPool(500.00)
+            .contributionType(ContributionType.VARIABLE_CONTRIBUTION)
+            .contributionPercentage(0.10)
+            .contributionDecreaseRate(0.01)
+            .contributionThreshold(10000.00)
+            .winChanceType(WinChanceType.VARIABLE_CHANCE)
+            .winChanceInitialChance(0.01)
+            .winChanceLimit(10000.00)
+            .winChanceIncreaseRate(0.1)
+            .build()
+
+    def "fixed contribution is a percentage of the bet whatever the pool"() {
+        expect:
+        FIXED.contribution(betAmount, currentPool) == expected
+
+        where:
+        betAmount | currentPool || expected
+        100.00    | 1000.00     || 5.00
+        100.00    | 999999.00   || 5.00
+        0.01      | 1000.00     || 0.0005
+    }
+
+    def "variable contribution of #betAmount on a pool of #currentPool is #expected"() {
+        expect:
+        VARIABLE.contribution(betAmount, currentPool) == expected
+
+        where:
+        betAmount | currentPool || expected
+        100.00    | 0.00        || 10.00
+        100.00    | 500.00      || 9.95
+        100.00    | 5000.00     || 9.50
+        // The pool to threshold ratio is rounded to the scale of the pool: 0.1234 becomes 0.12
+        100.00    | 1234.00     || 9.88
+        // 0.999999 rounds up to 1.00, so the whole decrease rate applies just below the threshold
+        100.00    | 9999.99     || 9.00
+        100.00    | 10000.00    || 0
+        100.00    | 25000.00    || 0
+    }
+
+    def "fixed win chance ignores the pool"() {
+        expect:
+        FIXED.winChance(currentPool) == 0.01d
+
+        where:
+        currentPool << [0.00, 1000.00, 1000000.00]
+    }
+
+    def "variable win chance on a pool of #currentPool is #expected"() {
+        expect:
+        VARIABLE.winChance(currentPool) == expected
+
+        where:
+        currentPool || expected
+        0.00        || 0.01d
+        500.00      || 0.015d
+        5000.00     || 0.06d
+        9999.99     || 0.11d
+        10000.00    || 1.0d
+        20000.00    || 1.0d
+    }
+
+    def "variable win chance is capped at certainty below the limit"() {
+        given:
+        def rules = JackpotRules.builder()
+                .winChanceType(WinChanceType.VARIABLE_CHANCE)
+                .winChanceInitialChance(0.95)
+                .winChanceLimit(10000.00)
+                .winChanceIncreaseRate(0.1)
+                .build()
+
+        expect:
+        rules.winChance(9000.00) == JackpotRules.MAX_PROBABILITY
+    }
+
+    def "adding #contribution to #currentPool rounds half up to #expected"() {
+        when:
+        def pool = FIXED.addContribution(currentPool, contribution)
+
+        then:
+        pool == expected
+        pool.scale() == JackpotRules.POOL_SCALE
+
+        where:
+        currentPool | contribution || expected
+        1000.00     | 5.000        || 1005.00
+        1000.00     | 0.125        || 1000.13
+        1000.00     | 0.124        || 1000.12
+        1000.00     | 0.0005       || 1000.00
+        1000.00     | 0            || 1000.00
+    }
+}
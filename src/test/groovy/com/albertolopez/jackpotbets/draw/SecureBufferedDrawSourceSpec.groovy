@@ -0,0 +1,67 @@
+package com.albertolopez.jackpotbets.draw
+
+import spock.lang.Specification
+import spock.lang.Timeout
+import spock.util.concurrent.PollingConditions
+
+class SecureBufferedDrawSourceSpec extends Specification {
+
+    private static final int BLOCK_SIZE = 8
+    private static final int BUFFERED_BLOCKS = 2
+
+    def "should draw from the buffered blocks while the refill thread keeps up"() {
+        given:
+        def drawSource = new SecureBufferedDrawSource(BLOCK_SIZE, BUFFERED_BLOCKS)
+        new PollingConditions(timeout: 10).eventually {
+            assert drawSource.bufferedBlocks == BUFFERED_BLOCKS
+        }
+
+        when:
+        def draws = (0..<BLOCK_SIZE).collect { drawSource.draw(UUID.randomUUID(), 0) }
+
+        then:
+        drawSource.fallbackBlocks == 0
+        draws.every { it >= 0.0d && it < 1.0d }
+
+        cleanup:
+        drawSource.close()
+    }
+
+    @Timeout(10)
+    def "should generate a block on the request thread instead of waiting when the buffer is empty"() {
+        given: "A source whose refill thread has stopped"
+        def existing = refillThreads()
+        def drawSource = new SecureBufferedDrawSource(BLOCK_SIZE, BUFFERED_BLOCKS)
+        def refillThread = (refillThreads() - existing)[0]
+        drawSource.close()
+        refillThread.join(5000)
+        def leftInBuffer = drawSource.bufferedBlocks
+
+        when: "Ten blocks worth of draws are taken"
+        def draws = (0..<BLOCK_SIZE * 10).collect { drawSource.draw(UUID.randomUUID(), it) }
+
+        then: "The blocks that were not buffered are generated on the spot and counted"
+        drawSource.bufferedBlocks == 0
+        drawSource.fallbackBlocks == 10 - leftInBuffer
+        draws.every { it >= 0.0d && it < 1.0d }
+    }
+
+    def "should stop the refill thread when closed"() {
+        given:
+        def existing = refillThreads()
+        def drawSource = new SecureBufferedDrawSource(BLOCK_SIZE, BUFFERED_BLOCKS)
+        def refillThread = (refillThreads() - existing)[0]
+        assert refillThread.alive && refillThread.daemon
+
+        when:
+        drawSource.close()
+        refillThread.join(5000)
+
+        then:
+        !refillThread.alive
+    }
+
+    private static Set<Thread> refillThreads() {
+        Thread.getAllStackTraces().keySet().findAll { it.name == "secure-draw-refill" } as Set
+    }
+}
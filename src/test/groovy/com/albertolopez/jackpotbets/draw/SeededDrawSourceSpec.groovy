@@ -0,0 +1,59 @@
+package com.albertolopez.jackpotbets.draw
+
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+class SeededDrawSourceSpec extends Specification {
+
+    def "should give the same draw for the same seed, bet and index"() {
+        given:
+        def betId = UUID.fromString("6f0c3f4e-2b8a-4d7e-9c1b-5a3e8f2d7b90")
+
+        expect: "Separate instances agree, as they do across restarts"
+        new SeededDrawSource(42).draw(betId, 0) == new SeededDrawSource(42).draw(betId, 0)
+        new SeededDrawSource(42).draw(betId, 1) == new SeededDrawSource(42).draw(betId, 1)
+    }
+
+    def "should give each bet the same draws whatever the order and threads they are evaluated on"() {
+        given:
+        def drawSource = new SeededDrawSource(7)
+        def betIds = (1..1000).collect { UUID.randomUUID() }
+
+        when: "The bets are drawn in order, in reverse and in parallel"
+        def inOrder = betIds.collectEntries { [(it): drawSource.draw(it, 0)] }
+        def reversed = betIds.reverse().collectEntries { [(it): drawSource.draw(it, 0)] }
+        def executor = Executors.newFixedThreadPool(4)
+        def parallel = executor.invokeAll(betIds.collect { betId -> { -> [betId, drawSource.draw(betId, 0)] } as Callable })
+                .collectEntries { it.get() }
+        executor.shutdown()
+
+        then:
+        reversed == inOrder
+        parallel == inOrder
+    }
+
+    def "should give different draws to different seeds, bets and tiers"() {
+        given:
+        def betId = UUID.randomUUID()
+        def drawSource = new SeededDrawSource(42)
+
+        expect:
+        drawSource.draw(betId, 0) != drawSource.draw(betId, 1)
+        drawSource.draw(betId, 0) != drawSource.draw(UUID.randomUUID(), 0)
+        drawSource.draw(betId, 0) != new SeededDrawSource(43).draw(betId, 0)
+    }
+
+    def "should draw uniformly from zero inclusive to one exclusive"() {
+        given:
+        def drawSource = new SeededDrawSource(0)
+        def draws = (1..100000).collect { drawSource.draw(UUID.randomUUID(), 0) }
+
+        expect:
+        draws.every { it >= 0 && it < 1 }
+        Math.abs(draws.sum() / draws.size() - 0.5) < 0.01
+        // A 1% win chance should be hit about 1% of the time
+        Math.abs((draws.count { it < 0.01 } as double) / draws.size() - 0.01) < 0.002
+    }
+}
@@ -0,0 +1,79 @@
+package com.albertolopez.jackpotbets.journal
+
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+
+class JournalCodecSpec extends Specification {
+
+    def "should read back the event it wrote"() {
+        given: "A pool event"
+        def event = PoolEvent.builder()
+                .sequence(42L)
+                .type(PoolEventType.RESET)
+                .jackpotId("fab085d6-4f0b-47ec-ac7a-5a7293d0d48f")
+                .amount(new BigDecimal("12345.67"))
+                .currentPool(new BigDecimal("10000.00"))
+                .build()
+        def buffer = ByteBuffer.allocate(1024)
+
+        when: "It is written and read back"
+        JournalCodec.writeEvent(buffer, event)
+        buffer.flip()
+        def read = JournalCodec.readEvent(buffer)
+
+        then: "Every field is preserved and the whole record is consumed"
+        read == event
+        !buffer.hasRemaining()
+    }
+
+    def "should preserve the value and scale of #value"() {
+        given:
+        def buffer = ByteBuffer.allocate(64)
+
+        when:
+        JournalCodec.writeDecimal(buffer, value)
+        buffer.flip()
+        def read = JournalCodec.readDecimal(buffer)
+
+        then:
+        read == value
+        read.scale() == value.scale()
+
+        where:
+        value << [
+                BigDecimal.ZERO,
+                new BigDecimal("0.00"),
+                new BigDecimal("-0.01"),
+                new BigDecimal("1E+3"),
+                new BigDecimal("123456789012345678901234567890.123456")
+        ]
+    }
+
+    def "should preserve non-ascii strings"() {
+        given:
+        def buffer = ByteBuffer.allocate(64)
+
+        when:
+        JournalCodec.writeString(buffer, "jackpot-ñ-€")
+        buffer.flip()
+
+        then:
+        JournalCodec.readString(buffer) == "jackpot-ñ-€"
+    }
+
+    def "should change the checksum when a single byte changes"() {
+        given:
+        def body = ByteBuffer.wrap([1, 2, 3, 4] as byte[])
+        def checksum = JournalCodec.checksum(body)
+
+        when:
+        body.put(2, (byte) 5)
+
+        then:
+        JournalCodec.checksum(body) != checksum
+
+        and: "Computing the checksum does not move the buffer"
+        body.position() == 0
+    }
+}
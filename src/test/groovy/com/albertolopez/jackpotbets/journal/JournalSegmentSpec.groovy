@@ -0,0 +1,127 @@
+package com.albertolopez.jackpotbets.journal
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+class JournalSegmentSpec extends Specification {
+
+    @TempDir
+    Path directory
+
+    def "should replay appended events in order and stop at the zeroed tail"() {
+        given: "A segment with three events"
+        def events = (1..3).collect { event(it) }
+        JournalSegment.create(directory, 1, 4096).withCloseable { segment ->
+            events.each { assert segment.tryAppend(encode(it)) }
+        }
+
+        expect: "Replay returns exactly those events"
+        replay(segmentPath(1)) == events
+    }
+
+    def "should stop replay at a record whose length was never published"() {
+        given: "Two complete events followed by a torn third one"
+        def events = (1..3).collect { event(it) }
+        JournalSegment.create(directory, 1, 4096).withCloseable { segment ->
+            events.each { segment.tryAppend(encode(it)) }
+        }
+        overwrite(segmentPath(1), frameOffset(events, 2), ByteBuffer.allocate(Integer.BYTES))
+
+        expect:
+        replay(segmentPath(1)) == events.take(2)
+    }
+
+    def "should stop replay at a length running past the end of the segment"() {
+        given:
+        def events = (1..2).collect { event(it) }
+        JournalSegment.create(directory, 1, 4096).withCloseable { segment ->
+            events.each { segment.tryAppend(encode(it)) }
+        }
+        overwrite(segmentPath(1), frameOffset(events, 1), ByteBuffer.allocate(Integer.BYTES).putInt(0, 1 << 20))
+
+        expect:
+        replay(segmentPath(1)) == events.take(1)
+    }
+
+    def "should stop replay at the first record failing its checksum"() {
+        given: "Three events where the body of the second one is corrupt"
+        def events = (1..3).collect { event(it) }
+        JournalSegment.create(directory, 1, 4096).withCloseable { segment ->
+            events.each { segment.tryAppend(encode(it)) }
+        }
+        def corruptByte = frameOffset(events, 1) + JournalCodec.FRAME_HEADER_SIZE + 3
+        overwrite(segmentPath(1), corruptByte, ByteBuffer.wrap([0x7F] as byte[]))
+
+        expect: "The valid event after the corrupt one is not replayed either"
+        replay(segmentPath(1)) == events.take(1)
+    }
+
+    def "should refuse an event that does not fit and leave the segment untouched"() {
+        given: "A segment with room for exactly one event and its terminator"
+        def first = event(1)
+        def size = JournalCodec.FRAME_HEADER_SIZE + encode(first).remaining() + Integer.BYTES
+        def segment = JournalSegment.create(directory, 1, size)
+
+        when:
+        def firstAppended = segment.tryAppend(encode(first))
+        def secondAppended = segment.tryAppend(encode(event(2)))
+        segment.close()
+
+        then:
+        firstAppended
+        !secondAppended
+        replay(segmentPath(1)) == [first]
+    }
+
+    def "should truncate a leftover segment with the same first sequence"() {
+        given:
+        JournalSegment.create(directory, 1, 4096).withCloseable { it.tryAppend(encode(event(1))) }
+
+        when:
+        JournalSegment.create(directory, 1, 4096).close()
+
+        then:
+        replay(segmentPath(1)).isEmpty()
+    }
+
+    private static PoolEvent event(long sequence) {
+        PoolEvent.builder()
+                .sequence(sequence)
+                .type(PoolEventType.CONTRIBUTION)
+                .jackpotId("8d75dbf1-e50e-42f5-91b6-829c10f0d275")
+                .amount(new BigDecimal("5.00"))
+                .currentPool(new BigDecimal(1000 + sequence * 5).setScale(2))
+                .build()
+    }
+
+    private static ByteBuffer encode(PoolEvent event) {
+        def body = ByteBuffer.allocate(1024)
+        JournalCodec.writeEvent(body, event)
+        body.flip()
+    }
+
+    private static long frameOffset(List<PoolEvent> events, int index) {
+        events.take(index).sum(0L) { JournalCodec.FRAME_HEADER_SIZE + encode(it).remaining() } as long
+    }
+
+    private Path segmentPath(long firstSequence) {
+        directory.resolve(String.format("journal-%020d.log", firstSequence))
+    }
+
+    private static List<PoolEvent> replay(Path path) {
+        def events = []
+        JournalSegment.openReadOnly(path).withCloseable { segment ->
+            segment.forEach { events << it }
+        }
+        events
+    }
+
+    private static void overwrite(Path path, long position, ByteBuffer bytes) {
+        FileChannel.open(path, StandardOpenOption.WRITE).withCloseable { it.write(bytes, position) }
+    }
+}
@@ -0,0 +1,108 @@
+package com.albertolopez.jackpotbets.journal
+
+import com.albertolopez.jackpotbets.persistence.entities.JackpotContributionEntity
+import com.albertolopez.jackpotbets.persistence.entities.JackpotEntity
+import com.albertolopez.jackpotbets.persistence.repository.JackpotContributionRepository
+import com.albertolopez.jackpotbets.persistence.repository.JackpotRepository
+import com.albertolopez.jackpotbets.persistence.repository.JackpotRewardRepository
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Path
+
+class PoolJournalRecoverySpec extends Specification {
+
+    private static final String FIXED_JACKPOT_ID = "8d75dbf1-e50e-42f5-91b6-829c10f0d275"
+    private static final String VARIABLE_JACKPOT_ID = "fab085d6-4f0b-47ec-ac7a-5a7293d0d48f"
+
+    @TempDir
+    Path directory
+
+    JackpotRepository jackpotRepository = Mock()
+    JackpotContributionRepository contributionRepository = Stub()
+    JackpotRewardRepository rewardRepository = Stub()
+    TransactionTemplate transactionTemplate = new TransactionTemplate(Mock(PlatformTransactionManager))
+
+    def "should restore the journaled pools over the seeded ones and keep journaling"() {
+        given: "A journal written by a previous run"
+        def previousRun = new PoolJournal(true, directory, 4096, 1000)
+        previousRun.recover()
+        previousRun.open([(FIXED_JACKPOT_ID): 1000.00, (VARIABLE_JACKPOT_ID): 500.00])
+        previousRun.recordContribution(FIXED_JACKPOT_ID, 150.00, 1000.00, 1150.00)
+        previousRun.close()
+
+        and: "A database freshly seeded with the initial pools"
+        def fixedJackpot = jackpot(FIXED_JACKPOT_ID, 1000.00)
+        def variableJackpot = jackpot(VARIABLE_JACKPOT_ID, 500.00)
+        jackpotRepository.findAll() >> [fixedJackpot, variableJackpot]
+
+        and:
+        def journal = new PoolJournal(true, directory, 4096, 1000)
+        def recovery = new PoolJournalRecovery(journal, jackpotRepository, contributionRepository, rewardRepository, transactionTemplate)
+
+        when:
+        recovery.recover()
+
+        then: "Only the pool that changed is restored"
+        fixedJackpot.currentPool == 1150.00
+        variableJackpot.currentPool == 500.00
+        recovery.restoredJackpotIds == [FIXED_JACKPOT_ID] as Set
+
+        when: "The next contribution is journaled"
+        journal.recordContribution(VARIABLE_JACKPOT_ID, 10.00, 500.00, 510.00)
+        journal.close()
+
+        then: "It is recovered together with the restored pools"
+        new PoolJournal(true, directory, 4096, 1000).recover().pools == [(FIXED_JACKPOT_ID): 1150.00, (VARIABLE_JACKPOT_ID): 510.00]
+    }
+
+    def "should keep the pools of a database that still has history"() {
+        given: "A journal whose last event may never have been committed"
+        def previousRun = new PoolJournal(true, directory, 4096, 1000)
+        previousRun.recover()
+        previousRun.open([(FIXED_JACKPOT_ID): 1000.00])
+        previousRun.recordContribution(FIXED_JACKPOT_ID, 150.00, 1000.00, 1150.00)
+        previousRun.close()
+
+        and: "A database that survived the restart"
+        def fixedJackpot = jackpot(FIXED_JACKPOT_ID, 1000.00)
+        fixedJackpot.currentPool = 1100.00
+        jackpotRepository.findAll() >> [fixedJackpot]
+        contributionRepository.findFirstByOrderByIdAsc() >> Optional.of(new JackpotContributionEntity())
+
+        and:
+        def journal = new PoolJournal(true, directory, 4096, 1000)
+        def recovery = new PoolJournalRecovery(journal, jackpotRepository, contributionRepository, rewardRepository, transactionTemplate)
+
+        when:
+        recovery.recover()
+        journal.close()
+
+        then: "The database pool is kept and journaled from now on"
+        fixedJackpot.currentPool == 1100.00
+        recovery.restoredJackpotIds.isEmpty()
+        new PoolJournal(true, directory, 4096, 1000).recover().pools == [(FIXED_JACKPOT_ID): 1100.00]
+    }
+
+    def "should leave the pools alone when the journal is disabled"() {
+        given:
+        def journal = new PoolJournal(false, directory, 4096, 1000)
+        def recovery = new PoolJournalRecovery(journal, jackpotRepository, contributionRepository, rewardRepository, transactionTemplate)
+
+        when:
+        recovery.recover()
+
+        then:
+        0 * jackpotRepository._
+    }
+
+    private static JackpotEntity jackpot(String id, BigDecimal pool) {
+        def jackpot = new JackpotEntity()
+        jackpot.id = id
+        jackpot.initialPool = pool
+        jackpot.currentPool = pool
+        jackpot
+    }
+}
@@ -0,0 +1,248 @@
+package com.albertolopez.jackpotbets.journal
+
+import org.springframework.transaction.support.TransactionSynchronization
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.Executor
+
+class PoolJournalSpec extends Specification {
+
+    private static final String JACKPOT_ID = "8d75dbf1-e50e-42f5-91b6-829c10f0d275"
+
+    @TempDir
+    Path directory
+
+    def cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization()
+        }
+    }
+
+    def "should recover the pools journaled before a restart"() {
+        given: "A journal opened with the seeded pools"
+        def journal = openJournal(4096, 1000, [(JACKPOT_ID): 1000.00])
+
+        when: "A contribution and a reset are journaled and the process stops"
+        journal.recordContribution(JACKPOT_ID, 5.00, 1000.00, 1005.00)
+        journal.recordReset(JACKPOT_ID, 1005.00, 1005.00, 1000.00)
+        journal.recordContribution(JACKPOT_ID, 2.50, 1000.00, 1002.50)
+        journal.close()
+
+        then: "Recovery returns the last journaled pool"
+        def recovered = newJournal(4096, 1000).recover()
+        recovered.sequence == 3
+        recovered.pools == [(JACKPOT_ID): 1002.50]
+    }
+
+    def "should roll over to a new segment when the active one is full"() {
+        given: "Segments with room for only a few events"
+        def journal = openJournal(256, 1000, [(JACKPOT_ID): 1000.00])
+
+        when:
+        contribute(journal, 20)
+        journal.close()
+
+        then: "The events are spread over several segments and all of them are replayed"
+        segmentFiles().size() > 1
+        def recovered = newJournal(256, 1000).recover()
+        recovered.sequence == 20
+        recovered.pools[JACKPOT_ID] == 1020.00
+    }
+
+    def "should replay only the events written after the latest snapshot"() {
+        given: "Segments with room for only a few events"
+        def journal = openJournal(256, 5, [(JACKPOT_ID): 1000.00])
+
+        when: "Twelve events are journaled with a snapshot every five"
+        contribute(journal, 12)
+        journal.close()
+
+        then: "The latest snapshot and its fallback are kept, older files are deleted"
+        snapshotFiles()*.fileName*.toString() == ["snapshot-00000000000000000005.snap", "snapshot-00000000000000000010.snap"]
+
+        and: "Only the segments holding events after the fallback snapshot are kept"
+        def firstSequences = segmentFiles().collect { JournalSegment.firstSequence(it) }
+        firstSequences[0] > 1
+        firstSequences[0] <= 6
+        firstSequences.size() == 1 || firstSequences[1] > 6
+
+        and: "Recovery combines the snapshot with the tail of the journal"
+        def recovered = newJournal(256, 5).recover()
+        recovered.sequence == 12
+        recovered.pools[JACKPOT_ID] == 1012.00
+    }
+
+    def "should snapshot on the background thread without holding up appends"() {
+        given: "A background thread that only runs when told to"
+        List<Runnable> backgroundTasks = []
+        def journal = new PoolJournal(true, directory, 4096, 5, { backgroundTasks << it } as Executor)
+        journal.recover()
+        journal.open([(JACKPOT_ID): 1000.00])
+
+        when: "The snapshot interval is reached"
+        contribute(journal, 5)
+
+        then: "The snapshot is only handed over"
+        backgroundTasks.size() == 1
+        snapshotFiles()*.fileName*.toString() == ["snapshot-00000000000000000000.snap"]
+
+        when: "Another interval of events is journaled while it is pending"
+        (6..10).each { journal.recordContribution(JACKPOT_ID, 1.00, 999.00 + it, 1000.00 + it) }
+
+        then: "No second snapshot is started"
+        backgroundTasks.size() == 1
+
+        when: "The background thread catches up and one more event is journaled"
+        backgroundTasks.remove(0).run()
+        journal.recordContribution(JACKPOT_ID, 1.00, 1010.00, 1011.00)
+
+        then: "The snapshot holds the pools copied when it was scheduled and the next one is started"
+        snapshotFiles()*.fileName*.toString() == ["snapshot-00000000000000000000.snap", "snapshot-00000000000000000005.snap"]
+        backgroundTasks.size() == 1
+
+        when:
+        backgroundTasks.remove(0).run()
+        journal.close()
+
+        then:
+        def recovered = newJournal(4096, 5).recover()
+        recovered.sequence == 11
+        recovered.pools[JACKPOT_ID] == 1011.00
+    }
+
+    def "should fall back to the previous snapshot when the latest one is corrupt"() {
+        given:
+        def journal = openJournal(4096, 5, [(JACKPOT_ID): 1000.00])
+        contribute(journal, 12)
+        journal.close()
+
+        when: "The latest snapshot is damaged"
+        Files.write(directory.resolve("snapshot-00000000000000000010.snap"), [0, 0, 0, 4, 1, 2, 3, 4, 5, 6, 7, 8] as byte[])
+        def recovered = newJournal(4096, 5).recover()
+
+        then: "The pools are rebuilt from the previous snapshot and the segments after it"
+        recovered.sequence == 12
+        recovered.pools[JACKPOT_ID] == 1012.00
+    }
+
+    def "should reject an event larger than a segment without advancing the journal"() {
+        given:
+        def journal = openJournal(64, 1000, [(JACKPOT_ID.take(1)): 1000.00])
+
+        when: "An event that cannot fit in any segment is journaled"
+        journal.recordContribution("x" * 100, 5.00, 1000.00, 1005.00)
+
+        then:
+        thrown(IllegalStateException)
+
+        when: "The next event is journaled"
+        journal.recordContribution(JACKPOT_ID.take(1), 5.00, 1000.00, 1005.00)
+        journal.close()
+
+        then: "It takes the sequence the rejected event did not use"
+        def recovered = newJournal(64, 1000).recover()
+        recovered.sequence == 1
+        recovered.pools == [(JACKPOT_ID.take(1)): 1005.00]
+    }
+
+    def "should fail instead of dropping events when the journal is not open"() {
+        given:
+        def journal = newJournal(4096, 1000)
+
+        when:
+        journal.recordContribution(JACKPOT_ID, 5.00, 1000.00, 1005.00)
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def "should journal the previous pool again when the transaction rolls back"() {
+        given:
+        def journal = openJournal(4096, 1000, [(JACKPOT_ID): 1000.00])
+
+        when: "A contribution is journaled before commit and the transaction then rolls back"
+        def synchronizations = inTransaction { journal.recordContribution(JACKPOT_ID, 5.00, 1000.00, 1005.00) }
+        synchronizations*.beforeCommit(false)
+        synchronizations*.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK)
+        journal.close()
+
+        then:
+        def recovered = newJournal(4096, 1000).recover()
+        recovered.sequence == 2
+        recovered.pools[JACKPOT_ID] == 1000.00
+    }
+
+    def "should not undo a rolled back event that a later event already superseded"() {
+        given:
+        def journal = openJournal(4096, 1000, [(JACKPOT_ID): 1000.00])
+
+        when: "A later transaction journals the jackpot before the first one finishes rolling back"
+        def synchronizations = inTransaction { journal.recordContribution(JACKPOT_ID, 5.00, 1000.00, 1005.00) }
+        synchronizations*.beforeCommit(false)
+        journal.recordContribution(JACKPOT_ID, 2.00, 1000.00, 1002.00)
+        synchronizations*.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK)
+        journal.close()
+
+        then:
+        def recovered = newJournal(4096, 1000).recover()
+        recovered.sequence == 2
+        recovered.pools[JACKPOT_ID] == 1002.00
+    }
+
+    def "should not journal anything for a transaction that rolls back before commit"() {
+        given:
+        def journal = openJournal(4096, 1000, [(JACKPOT_ID): 1000.00])
+
+        when:
+        def synchronizations = inTransaction { journal.recordContribution(JACKPOT_ID, 5.00, 1000.00, 1005.00) }
+        synchronizations*.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK)
+        journal.close()
+
+        then:
+        newJournal(4096, 1000).recover().sequence == 0
+    }
+
+    /**
+     * Runs the background tasks on the calling thread, so snapshots are taken exactly at the snapshot interval.
+     */
+    private PoolJournal newJournal(int segmentSize, int snapshotInterval) {
+        new PoolJournal(true, directory, segmentSize, snapshotInterval, { it.run() } as Executor)
+    }
+
+    private PoolJournal openJournal(int segmentSize, int snapshotInterval, Map<String, BigDecimal> pools) {
+        def journal = newJournal(segmentSize, snapshotInterval)
+        journal.recover()
+        journal.open(pools)
+        journal
+    }
+
+    private static void contribute(PoolJournal journal, int count) {
+        (1..count).each {
+            journal.recordContribution(JACKPOT_ID, 1.00, 999.00 + it, 1000.00 + it)
+        }
+    }
+
+    private static List<TransactionSynchronization> inTransaction(Closure work) {
+        TransactionSynchronizationManager.initSynchronization()
+        work()
+        def synchronizations = TransactionSynchronizationManager.getSynchronizations()
+        TransactionSynchronizationManager.clearSynchronization()
+        synchronizations
+    }
+
+    private List<Path> segmentFiles() {
+        Files.list(directory).withCloseable { files ->
+            files.filter { it.fileName.toString().endsWith(".log") }.sorted().toList()
+        }
+    }
+
+    private List<Path> snapshotFiles() {
+        Files.list(directory).withCloseable { files ->
+            files.filter { it.fileName.toString().endsWith(".snap") }.sorted().toList()
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.albertolopez.jackpotbets.reconciliation
+
+import spock.lang.Specification
+
+class PoolTotalsSpec extends Specification {
+
+    private static final BigDecimal INITIAL_POOL = 1000.00
+
+    /*
+     * Two win cycles: 5 + 5 then a win of 1010, 3 then a win of 1003, and 7 since the last win, which leaves the
+     * pool at 1007.
+     */
+    private static final List<List> HISTORY = [
+            [HistoryTable.CONTRIBUTIONS, 5.00],
+            [HistoryTable.CONTRIBUTIONS, 5.00],
+            [HistoryTable.REWARDS, 1010.00],
+            [HistoryTable.CONTRIBUTIONS, 3.00],
+            [HistoryTable.REWARDS, 1003.00],
+            [HistoryTable.CONTRIBUTIONS, 7.00]
+    ]
+
+    def "should expect the initial pool for a jackpot without history"() {
+        expect:
+        new PoolTotals().expectedPool(INITIAL_POOL) == 1000.00
+    }
+
+    def "should expect the pool left after several win cycles whatever the order of the rows"() {
+        given:
+        def totals = new PoolTotals()
+
+        when:
+        rows.each { table, amount -> (table as HistoryTable).addTo(totals, amount as BigDecimal) }
+
+        then:
+        totals.expectedPool(INITIAL_POOL) == 1007.00
+
+        where:
+        rows << [HISTORY, HISTORY.reverse(), shuffled(HISTORY, 1), shuffled(HISTORY, 2)]
+    }
+
+    def "should expect the same pool from totals split into chunks and merged"() {
+        given: "The history summed in three chunks, as parallel scan tasks would"
+        def chunks = HISTORY.collate(2).collect { chunk ->
+            def totals = new PoolTotals()
+            chunk.each { table, amount -> (table as HistoryTable).addTo(totals, amount as BigDecimal) }
+            totals
+        }
+
+        when:
+        def merged = chunks[2].merge(chunks[0]).merge(chunks[1])
+
+        then:
+        merged.expectedPool(INITIAL_POOL) == 1007.00
+    }
+
+    private static List<List> shuffled(List<List> rows, long seed) {
+        def copy = new ArrayList<>(rows)
+        Collections.shuffle(copy, new Random(seed))
+        copy
+    }
+}
@@ -0,0 +1,272 @@
+package com.albertolopez.jackpotbets.reconciliation
+
+import com.albertolopez.jackpotbets.journal.PoolJournal
+import com.albertolopez.jackpotbets.journal.PoolJournalRecovery
+import io.micrometer.core.instrument.Counter
+import io.micrometer.core.instrument.Meter
+import io.micrometer.core.instrument.cumulative.CumulativeCounter
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.flywaydb.core.Flyway
+import org.springframework.http.HttpStatus
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.jdbc.datasource.DataSourceTransactionManager
+import org.springframework.jdbc.datasource.DriverManagerDataSource
+import org.springframework.test.util.ReflectionTestUtils
+import org.springframework.web.server.ResponseStatusException
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.nio.file.Path
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+class ReconciliationServiceSpec extends Specification {
+
+    private static final String FIXED_JACKPOT_ID = "8d75dbf1-e50e-42f5-91b6-829c10f0d275"
+    private static final String VARIABLE_JACKPOT_ID = "fab085d6-4f0b-47ec-ac7a-5a7293d0d48f"
+
+    DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:reconciliation-${UUID.randomUUID()};DB_CLOSE_DELAY=-1", "sa", "")
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource)
+    PoolJournalRecovery poolJournalRecovery = Mock()
+    ScanHookMeterRegistry meterRegistry = new ScanHookMeterRegistry()
+    Set<String> restoredJackpotIds = []
+    ReconciliationService reconciliationService
+
+    def setup() {
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate()
+        poolJournalRecovery.getRestoredJackpotIds() >> { restoredJackpotIds }
+
+        reconciliationService = new ReconciliationService(new PoolJournal(false, Path.of("unused"), 0, 0),
+                poolJournalRecovery, dataSource, new DataSourceTransactionManager(dataSource), meterRegistry, 100)
+        ReflectionTestUtils.setField(reconciliationService, "parallelism", 2)
+        // Small chunks so that every table is split and scanned by several tasks
+        ReflectionTestUtils.setField(reconciliationService, "chunkSize", 2L)
+        ReflectionTestUtils.setField(reconciliationService, "progressInterval", 1000L)
+        ReflectionTestUtils.setField(reconciliationService, "tolerance", 0.00)
+
+        // Two win cycles leave the fixed jackpot at 1000 + 3, and the variable jackpot has no history
+        contribution(FIXED_JACKPOT_ID, 5.00)
+        contribution(FIXED_JACKPOT_ID, 5.00)
+        reward(FIXED_JACKPOT_ID, 1010.00)
+        reward(VARIABLE_JACKPOT_ID, 0.00)
+        contribution(FIXED_JACKPOT_ID, 3.00)
+        setPool(FIXED_JACKPOT_ID, 1003.00)
+    }
+
+    def cleanup() {
+        reconciliationService.close()
+        jdbcTemplate.execute("SHUTDOWN")
+    }
+
+    def "should find no discrepancy when every pool matches its history"() {
+        when:
+        def status = reconcile(false)
+
+        then:
+        status.state == ReconciliationStatus.State.COMPLETED
+        status.rowsScanned == 4
+        with(status.report) {
+            jackpotsChecked == 2
+            contributionRows == 3
+            payoutRows == 1
+            discrepancies.isEmpty()
+        }
+        meterRegistry.get("jackpot.reconciliation.rows").tag("table", "jackpot_contributions").counter().count() == 3
+    }
+
+    def "should report a drifted pool and only overwrite it when repairing"() {
+        given:
+        setPool(FIXED_JACKPOT_ID, 1010.00)
+
+        when:
+        def status = reconcile(repair)
+
+        then:
+        status.report.discrepancies.size() == 1
+        with(status.report.discrepancies[0]) {
+            jackpotId == FIXED_JACKPOT_ID
+            currentPool == 1010.00
+            expectedPool == 1003.00
+            difference == 7.00
+            repaired == repair
+            !restoredFromJournal
+        }
+        pool(FIXED_JACKPOT_ID) == poolAfterwards
+
+        where:
+        repair | poolAfterwards
+        false  | 1010.00
+        true   | 1003.00
+    }
+
+    def "should only compare pools against the history written before the scan started"() {
+        given: "A bet contributing to the fixed jackpot while the contributions are being scanned"
+        meterRegistry.afterContributionsScanned = oneBet(FIXED_JACKPOT_ID, 4.00)
+
+        when:
+        def status = reconcile(true)
+
+        then: "The contribution is not scanned and the pool it updated is not reported"
+        status.report.contributionRows == 3
+        status.report.discrepancies.isEmpty()
+        pool(FIXED_JACKPOT_ID) == 1007.00
+    }
+
+    def "should keep a contribution made after the scan started when repairing a drifted pool"() {
+        given: "A drifted pool and a bet contributing to it while the contributions are being scanned"
+        setPool(FIXED_JACKPOT_ID, 1010.00)
+        meterRegistry.afterContributionsScanned = oneBet(FIXED_JACKPOT_ID, 4.00)
+
+        when:
+        def status = reconcile(true)
+
+        then: "The drift is reported against the pool at the start of the scan"
+        with(status.report.discrepancies[0]) {
+            currentPool == 1010.00
+            expectedPool == 1003.00
+            repaired
+        }
+
+        and: "The repaired pool still includes the later contribution"
+        pool(FIXED_JACKPOT_ID) == 1007.00
+    }
+
+    def "should report but never repair a pool restored from the journal"() {
+        given:
+        setPool(FIXED_JACKPOT_ID, 1010.00)
+        restoredJackpotIds = [FIXED_JACKPOT_ID] as Set
+
+        when:
+        def status = reconcile(true)
+
+        then:
+        with(status.report.discrepancies[0]) {
+            jackpotId == FIXED_JACKPOT_ID
+            restoredFromJournal
+            !repaired
+        }
+        pool(FIXED_JACKPOT_ID) == 1010.00
+    }
+
+    def "should reject a reconciliation while another one is running"() {
+        given: "A reconciliation held while scanning"
+        def scanning = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        meterRegistry.afterContributionsScanned = {
+            scanning.countDown()
+            release.await(10, TimeUnit.SECONDS)
+        }
+        def first = reconciliationService.start(false)
+        scanning.await(10, TimeUnit.SECONDS)
+
+        when:
+        reconciliationService.start(false)
+
+        then:
+        def e = thrown(ResponseStatusException)
+        e.statusCode == HttpStatus.CONFLICT
+        reconciliationService.status(first.runId).orElseThrow().state == ReconciliationStatus.State.RUNNING
+
+        when:
+        release.countDown()
+
+        then:
+        await(first.runId).state == ReconciliationStatus.State.COMPLETED
+    }
+
+    def "should not know a run that was never started"() {
+        expect:
+        reconciliationService.status(UUID.randomUUID()).isEmpty()
+    }
+
+    private ReconciliationStatus reconcile(boolean repair) {
+        def status = await(reconciliationService.start(repair).runId)
+        assert status.state == ReconciliationStatus.State.COMPLETED
+        status
+    }
+
+    private ReconciliationStatus await(UUID runId) {
+        ReconciliationStatus status = null
+        new PollingConditions(timeout: 10).eventually {
+            status = reconciliationService.status(runId).orElseThrow()
+            assert status.state != ReconciliationStatus.State.RUNNING
+        }
+        status
+    }
+
+    /**
+     * A bet processed by the consumer: a contribution and the pool update it goes with, committed together.
+     */
+    private Runnable oneBet(String jackpotId, BigDecimal amount) {
+        def placed = new AtomicBoolean()
+        return {
+            if (placed.compareAndSet(false, true)) {
+                contribution(jackpotId, amount)
+                jdbcTemplate.update("UPDATE jackpots SET current_pool = current_pool + ? WHERE id = ?", amount, jackpotId)
+            }
+        }
+    }
+
+    private void contribution(String jackpotId, BigDecimal amount) {
+        def betId = bet(jackpotId)
+        jdbcTemplate.update("""
+                INSERT INTO jackpot_contributions (bet_id, user_id, jackpot_id, stake_amount, contribution_amount, current_jackpot_amount, created_at)
+                VALUES (?, ?, ?, 100.00, ?, 0.00, CURRENT_TIMESTAMP)""", betId, betId, jackpotId, amount)
+    }
+
+    private void reward(String jackpotId, BigDecimal amount) {
+        def betId = bet(jackpotId)
+        jdbcTemplate.update("""
+                INSERT INTO jackpot_rewards (bet_id, user_id, jackpot_id, jackpot_reward_amount, created_at)
+                VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)""", betId, betId, jackpotId, amount)
+    }
+
+    private String bet(String jackpotId) {
+        def betId = UUID.randomUUID().toString()
+        jdbcTemplate.update("INSERT INTO bets (bet_id, user_id, jackpot_id, bet_amount, created_at) VALUES (?, ?, ?, 100.00, CURRENT_TIMESTAMP)",
+                betId, betId, jackpotId)
+        betId
+    }
+
+    private void setPool(String jackpotId, BigDecimal pool) {
+        jdbcTemplate.update("UPDATE jackpots SET current_pool = ? WHERE id = ?", pool, jackpotId)
+    }
+
+    private BigDecimal pool(String jackpotId) {
+        jdbcTemplate.queryForObject("SELECT current_pool FROM jackpots WHERE id = ?", BigDecimal, jackpotId)
+    }
+
+    /**
+     * Runs a hook every time a chunk of contributions has been scanned, which is the only point between the
+     * baseline and the repair where a test can act like a concurrent bet.
+     */
+    static class ScanHookMeterRegistry extends SimpleMeterRegistry {
+
+        Runnable afterContributionsScanned = {}
+
+        @Override
+        protected Counter newCounter(Meter.Id id) {
+            if (id.name != "jackpot.reconciliation.rows" || id.getTag("table") != "jackpot_contributions") {
+                return super.newCounter(id)
+            }
+            new HookedCounter(id, this)
+        }
+    }
+
+    static class HookedCounter extends CumulativeCounter {
+
+        private final ScanHookMeterRegistry registry
+
+        HookedCounter(Meter.Id id, ScanHookMeterRegistry registry) {
+            super(id)
+            this.registry = registry
+        }
+
+        @Override
+        void increment(double amount) {
+            super.increment(amount)
+            registry.afterContributionsScanned.run()
+        }
+    }
+}
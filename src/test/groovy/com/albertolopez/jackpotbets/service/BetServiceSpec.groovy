@@ -0,0 +1,163 @@
+package com.albertolopez.jackpotbets.service
+
+import com.albertolopez.jackpotbets.domain.ContributionType
+import com.albertolopez.jackpotbets.domain.WinChanceType
+import com.albertolopez.jackpotbets.draw.DrawSource
+import com.albertolopez.jackpotbets.journal.PoolJournal
+import com.albertolopez.jackpotbets.persistence.entities.JackpotEntity
+import com.albertolopez.jackpotbets.persistence.repository.BetEvaluationView
+import com.albertolopez.jackpotbets.persistence.repository.BetRepository
+import com.albertolopez.jackpotbets.persistence.repository.JackpotRepository
+import com.albertolopez.jackpotbets.persistence.repository.JackpotRewardRepository
+import com.albertolopez.jackpotbets.persistence.repository.OutboxRepository
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.http.HttpStatus
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.TransactionSystemException
+import org.springframework.transaction.support.SimpleTransactionStatus
+import org.springframework.transaction.support.TransactionTemplate
+import org.springframework.web.server.ResponseStatusException
+import spock.lang.Specification
+
+import java.nio.file.Path
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+import java.time.ZoneOffset
+
+class BetServiceSpec extends Specification {
+
+    private static final String JACKPOT_ID = "8d75dbf1-e50e-42f5-91b6-829c10f0d275"
+    private static final String JACKPOT_GROUP_ID = "3f1c2a7e-6b4d-4c8e-9a51-2d7e8f0b9c34"
+    private static final UUID BET_ID = UUID.fromString("5b0e7c1a-2f4d-4a8b-9c6e-1d3f5a7b9e20")
+    private static final UUID USER_ID = UUID.fromString("a1b2c3d4-e5f6-4a1b-8c2d-3e4f5a6b7c8d")
+    private static final Instant NOW = Instant.parse("2024-01-01T12:00:00Z")
+
+    BetRepository betRepository = Mock()
+    JackpotRepository jackpotRepository = Mock()
+    JackpotRewardRepository jackpotRewardRepository = Mock()
+    DrawSource drawSource = Stub()
+    PlatformTransactionManager transactionManager = Mock()
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    BetEvaluationCache betEvaluationCache = new BetEvaluationCache(meterRegistry, 100, Duration.ofMinutes(10))
+    boolean failCommit = false
+
+    BetService betService = new BetService(betRepository, Mock(OutboxRepository), jackpotRepository, jackpotRewardRepository,
+            new PoolJournal(false, Path.of("unused"), 0, 0), drawSource, Clock.fixed(NOW, ZoneOffset.UTC),
+            betEvaluationCache, new TransactionTemplate(transactionManager))
+
+    def setup() {
+        transactionManager.getTransaction(_) >> new SimpleTransactionStatus()
+        transactionManager.commit(_) >> {
+            if (failCommit) {
+                throw new TransactionSystemException("Commit failed")
+            }
+        }
+        drawSource.draw(BET_ID, _) >> 0.99d
+        jackpotRepository.findAllByIdInOrderByIdAsc([JACKPOT_ID]) >> [jackpot()]
+    }
+
+    def "should serve a repeated evaluation from the cache without reading the bet again"() {
+        when:
+        def first = betService.evaluateBet(BET_ID, USER_ID)
+        def second = betService.evaluateBet(BET_ID, USER_ID)
+
+        then:
+        1 * betRepository.findEvaluationViewsByBetId(BET_ID.toString()) >> [view(JACKPOT_ID, null)]
+        1 * jackpotRewardRepository.saveAll({ it.size() == 1 })
+        !first.jackpotWon
+        second.is(first)
+    }
+
+    def "should reject a cached evaluation requested by another user"() {
+        given:
+        betRepository.findEvaluationViewsByBetId(BET_ID.toString()) >> [view(JACKPOT_ID, null)]
+        betService.evaluateBet(BET_ID, USER_ID)
+
+        when:
+        betService.evaluateBet(BET_ID, UUID.randomUUID())
+
+        then:
+        def e = thrown(ResponseStatusException)
+        e.statusCode == HttpStatus.FORBIDDEN
+        0 * betRepository.findEvaluationViewsByBetId(_)
+    }
+
+    def "should not cache an evaluation whose transaction fails to commit"() {
+        given:
+        betRepository.findEvaluationViewsByBetId(BET_ID.toString()) >> [view(JACKPOT_ID, null)]
+        failCommit = true
+
+        when:
+        betService.evaluateBet(BET_ID, USER_ID)
+
+        then:
+        thrown(TransactionSystemException)
+
+        when:
+        failCommit = false
+        betService.evaluateBet(BET_ID, USER_ID)
+
+        then:
+        1 * betRepository.findEvaluationViewsByBetId(BET_ID.toString()) >> [view(JACKPOT_ID, null)]
+    }
+
+    def "should fail without caching when the bet targets no jackpot"() {
+        given:
+        def orphan = new TierView(userId: USER_ID.toString(), jackpotGroupId: JACKPOT_GROUP_ID)
+
+        when:
+        betService.evaluateBet(BET_ID, USER_ID)
+
+        then:
+        1 * betRepository.findEvaluationViewsByBetId(BET_ID.toString()) >> [orphan]
+        def e = thrown(IllegalStateException)
+        e.message == "No jackpot found for id: null or group id: " + JACKPOT_GROUP_ID
+        0 * jackpotRewardRepository.saveAll(_)
+
+        when:
+        betService.evaluateBet(BET_ID, USER_ID)
+
+        then:
+        1 * betRepository.findEvaluationViewsByBetId(BET_ID.toString()) >> [orphan]
+        thrown(IllegalStateException)
+    }
+
+    def "should publish the size, gets and hit ratio of the cache"() {
+        given:
+        betRepository.findEvaluationViewsByBetId(BET_ID.toString()) >> [view(JACKPOT_ID, 0.00)]
+
+        when: "The first evaluation misses and the next two hit"
+        3.times { betService.evaluateBet(BET_ID, USER_ID) }
+
+        then:
+        meterRegistry.get("cache.size").tag("cache", "betEvaluations").gauge().value() == 1
+        meterRegistry.get("cache.gets").tags("cache", "betEvaluations", "result", "miss").functionCounter().count() == 1
+        meterRegistry.get("cache.gets").tags("cache", "betEvaluations", "result", "hit").functionCounter().count() == 2
+        Math.abs(meterRegistry.get("cache.hit.ratio").tag("cache", "betEvaluations").gauge().value() - 2 / 3d) < 1e-9
+    }
+
+    private static TierView view(String jackpotId, BigDecimal rewardAmount) {
+        new TierView(userId: USER_ID.toString(), betJackpotId: jackpotId, jackpotId: jackpotId, rewardAmount: rewardAmount)
+    }
+
+    private static JackpotEntity jackpot() {
+        def jackpot = new JackpotEntity()
+        jackpot.id = JACKPOT_ID
+        jackpot.initialPool = 1000.00
+        jackpot.currentPool = 1000.00
+        jackpot.contributionType = ContributionType.FIXED_CONTRIBUTION
+        jackpot.contributionPercentage = 0.05
+        jackpot.winChanceType = WinChanceType.FIXED_CHANCE
+        jackpot.winChancePercentage = 0.01
+        jackpot
+    }
+
+    static class TierView implements BetEvaluationView {
+        String userId
+        String betJackpotId
+        String jackpotGroupId
+        String jackpotId
+        BigDecimal rewardAmount
+    }
+}
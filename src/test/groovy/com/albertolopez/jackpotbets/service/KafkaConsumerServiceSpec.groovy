@@ -0,0 +1,118 @@
+package com.albertolopez.jackpotbets.service
+
+import com.albertolopez.jackpotbets.domain.ContributionType
+import com.albertolopez.jackpotbets.domain.WinChanceType
+import com.albertolopez.jackpotbets.journal.PoolJournal
+import com.albertolopez.jackpotbets.persistence.entities.JackpotEntity
+import com.albertolopez.jackpotbets.persistence.repository.JackpotContributionRepository
+import com.albertolopez.jackpotbets.persistence.repository.JackpotRepository
+import com.jackpot.schema.BetMessage
+import spock.lang.Specification
+
+import java.nio.file.Path
+import java.time.Clock
+import java.time.Instant
+import java.time.ZoneOffset
+
+class KafkaConsumerServiceSpec extends Specification {
+
+    private static final String FIXED_JACKPOT_ID = "8d75dbf1-e50e-42f5-91b6-829c10f0d275"
+    private static final String VARIABLE_JACKPOT_ID = "fab085d6-4f0b-47ec-ac7a-5a7293d0d48f"
+    private static final String JACKPOT_GROUP_ID = "3f1c2a7e-6b4d-4c8e-9a51-2d7e8f0b9c34"
+    private static final Instant NOW = Instant.parse("2024-01-01T12:00:00Z")
+
+    JackpotRepository jackpotRepository = Mock()
+    JackpotContributionRepository contributionRepository = Mock()
+    PoolJournal poolJournal = new PoolJournal(false, Path.of("unused"), 0, 0)
+    KafkaConsumerService consumer = new KafkaConsumerService(jackpotRepository, contributionRepository, poolJournal,
+            Clock.fixed(NOW, ZoneOffset.UTC))
+
+    def "should add the contribution of a bet to its jackpot"() {
+        given:
+        def jackpot = fixedJackpot(1000.00)
+        jackpotRepository.findAllTargetedByForUpdate(FIXED_JACKPOT_ID, null) >> [jackpot]
+
+        when:
+        consumer.listen(message(FIXED_JACKPOT_ID, null, 100.0))
+
+        then:
+        jackpot.currentPool == 1005.00
+        1 * contributionRepository.insertAll({ List contributions ->
+            contributions.size() == 1 &&
+                    contributions[0].jackpotId == FIXED_JACKPOT_ID &&
+                    contributions[0].contributionAmount == 5.00 &&
+                    contributions[0].currentJackpotAmount == 1005.00 &&
+                    contributions[0].createdAt == NOW
+        })
+    }
+
+    def "should contribute to every tier of a group with the rules of each jackpot"() {
+        given:
+        def fixed = fixedJackpot(1000.00)
+        def variable = variableJackpot(5000.00)
+        jackpotRepository.findAllTargetedByForUpdate(null, JACKPOT_GROUP_ID) >> [fixed, variable]
+
+        when:
+        consumer.listen(message(null, JACKPOT_GROUP_ID, 100.0))
+
+        then: "The variable tier contributes 10% minus half of its 1% decrease rate"
+        fixed.currentPool == 1005.00
+        variable.currentPool == 5009.50
+        1 * jackpotRepository.saveAll([fixed, variable])
+        1 * contributionRepository.insertAll({ List contributions ->
+            contributions*.jackpotId == [FIXED_JACKPOT_ID, VARIABLE_JACKPOT_ID] &&
+                    contributions*.contributionAmount == [5.00, 9.50]
+        })
+    }
+
+    def "should fail when the bet targets no jackpot"() {
+        given:
+        jackpotRepository.findAllTargetedByForUpdate(null, JACKPOT_GROUP_ID) >> []
+
+        when:
+        consumer.listen(message(null, JACKPOT_GROUP_ID, 100.0))
+
+        then:
+        thrown(IllegalStateException)
+        0 * contributionRepository.insertAll(_)
+    }
+
+    private static BetMessage message(String jackpotId, String jackpotGroupId, double betAmount) {
+        BetMessage.newBuilder()
+                .setBetId(UUID.randomUUID().toString())
+                .setUserId(UUID.randomUUID().toString())
+                .setJackpotId(jackpotId)
+                .setJackpotGroupId(jackpotGroupId)
+                .setBetAmount(betAmount)
+                .setCreatedAt(NOW.toEpochMilli())
+                .build()
+    }
+
+    private static JackpotEntity fixedJackpot(BigDecimal currentPool) {
+        def jackpot = new JackpotEntity()
+        jackpot.id = FIXED_JACKPOT_ID
+        jackpot.initialPool = 1000.00
+        jackpot.currentPool = currentPool
+        jackpot.contributionType = ContributionType.FIXED_CONTRIBUTION
+        jackpot.contributionPercentage = 0.05
+        jackpot.winChanceType = WinChanceType.FIXED_CHANCE
+        jackpot.winChancePercentage = 0.01
+        jackpot
+    }
+
+    private static JackpotEntity variableJackpot(BigDecimal currentPool) {
+        def jackpot = new JackpotEntity()
+        jackpot.id = VARIABLE_JACKPOT_ID
+        jackpot.initialPool = 500.00
+        jackpot.currentPool = currentPool
+        jackpot.contributionType = ContributionType.VARIABLE_CONTRIBUTION
+        jackpot.contributionPercentage = 0.10
+        jackpot.contributionDecreaseRate = 0.01
+        jackpot.contributionThreshold = 10000.00
+        jackpot.winChanceType = WinChanceType.VARIABLE_CHANCE
+        jackpot.winChanceInitialChance = 0.01
+        jackpot.winChanceLimit = 10000.00
+        jackpot.winChanceIncreaseRate = 0.1
+        jackpot
+    }
+}
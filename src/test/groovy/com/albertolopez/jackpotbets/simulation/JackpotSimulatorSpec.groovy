@@ -0,0 +1,179 @@
+package com.albertolopez.jackpotbets.simulation
+
+import com.albertolopez.jackpotbets.domain.ContributionType
+import com.albertolopez.jackpotbets.domain.JackpotRules
+import com.albertolopez.jackpotbets.domain.WinChanceType
+import spock.lang.Specification
+
+import java.util.concurrent.Executors
+
+class JackpotSimulatorSpec extends Specification {
+
+    JackpotSimulator simulator = new JackpotSimulator()
+
+    def "every bet wins the pool it just contributed to when the win chance is certain"() {
+        when:
+        def result = simulator.simulate(parameters(fixedRules(1.0), 1000, 4))
+
+        then: "Each payout is the initial pool plus one contribution"
+        result.numberOfBets == 1000
+        result.wins == 1000
+        result.totalStaked == 100000.0d
+        result.totalPaidOut == 1005000.0d
+        result.totalContributed == 5000.0d
+        result.seedFunding == 1000000.0d
+        result.meanPayout == 1005.0d
+        result.meanBetsToWin == 1.0d
+        result.contributionRate == 0.05d
+
+        and: "All wins fall in the first bucket of both histograms"
+        result.betsToWinHistogram.buckets == [new Histogram.Bucket(1, 2, 1000)]
+        result.payoutHistogram.buckets.size() == 1
+        result.payoutHistogram.buckets[0].from == 1000.0d
+        result.payoutHistogram.buckets[0].count == 1000
+    }
+
+    def "the whole contribution stays in the pool when nobody can win"() {
+        when:
+        def result = simulator.simulate(parameters(fixedRules(0.0), 1000, 3))
+
+        then:
+        result.wins == 0
+        result.totalPaidOut == 0
+        result.totalContributed == 5000.0d
+        result.returnToPlayer == 0
+        result.meanPayout == 0
+        result.payoutHistogram.buckets.isEmpty()
+        result.betsToWinHistogram.buckets.isEmpty()
+    }
+
+    def "the same seed and parallelism give the same outcome"() {
+        given:
+        def simulation = parameters(fixedRules(0.01), 200000, 4)
+
+        when:
+        def first = simulator.simulate(simulation)
+        def second = simulator.simulate(simulation)
+
+        then:
+        first.wins == second.wins
+        first.totalPaidOut == second.totalPaidOut
+        first.payoutHistogram == second.payoutHistogram
+        first.betsToWinHistogram == second.betsToWinHistogram
+
+        and: "The return to player is close to the contribution rate over many wins"
+        first.wins > 1000
+        Math.abs(first.returnToPlayer - first.contributionRate - first.seedFunding / first.totalStaked) < 0.01
+    }
+
+    def "bets are split over the workers even when the executor has fewer threads"() {
+        given:
+        def executor = Executors.newSingleThreadExecutor()
+
+        when:
+        def result = simulator.simulate(parameters(fixedRules(1.0), 10, 3), executor)
+
+        then:
+        result.numberOfBets == 10
+        result.wins == 10
+        result.parallelism == 3
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "bets to win are bucketed by powers of two"() {
+        given:
+        def tally = new SimulationTally()
+
+        when:
+        [1L, 2L, 3L, 4L, 7L, 8L].each { tally.recordWin(1000.0d, 1000.0d, it) }
+
+        then:
+        tally.betsToWinHistogram[0] == 1
+        tally.betsToWinHistogram[1] == 2
+        tally.betsToWinHistogram[2] == 2
+        tally.betsToWinHistogram[3] == 1
+        tally.wins == 6
+        tally.betsInWinningCycles == 25
+    }
+
+    def "payouts are bucketed four times per doubling of the initial pool"() {
+        given:
+        def tally = new SimulationTally()
+
+        when:
+        [500.0d, 1000.0d, 1200.0d, 2100.0d, 4100.0d, 1.0e30d].each { tally.recordWin(it, 1000.0d, 1) }
+
+        then: "Payouts up to the initial pool share the first bucket and huge ones the last"
+        tally.payoutHistogram[0] == 2
+        tally.payoutHistogram[1] == 1
+        tally.payoutHistogram[4] == 1
+        tally.payoutHistogram[8] == 1
+        tally.payoutHistogram[SimulationTally.BUCKETS - 1] == 1
+        SimulationTally.payoutLowerBound(4, 1000.0d) == 2000.0d
+    }
+
+    def "merging tallies adds every counter and bucket"() {
+        given:
+        def left = new SimulationTally()
+        left.recordWin(1000.0d, 1000.0d, 1)
+        left.bets = 1
+        def right = new SimulationTally()
+        right.recordWin(2000.0d, 1000.0d, 4)
+        right.bets = 4
+
+        when:
+        def merged = left.merge(right)
+
+        then:
+        merged.bets == 5
+        merged.wins == 2
+        merged.paidOut == 3000.0d
+        merged.betsInWinningCycles == 5
+        merged.betsToWinHistogram[0] == 1
+        merged.betsToWinHistogram[2] == 1
+    }
+
+    def "a histogram keeps only the buckets between the first and the last non-empty one"() {
+        given:
+        def counts = new long[SimulationTally.BUCKETS]
+        counts[1] = 2
+        counts[3] = 5
+
+        when:
+        def histogram = Histogram.of(counts, SimulationTally::betsToWinLowerBound)
+
+        then:
+        histogram.buckets == [
+                new Histogram.Bucket(2, 4, 2),
+                new Histogram.Bucket(4, 8, 0),
+                new Histogram.Bucket(8, 16, 5)
+        ]
+    }
+
+    def "an empty histogram has no buckets"() {
+        expect:
+        Histogram.of(new long[SimulationTally.BUCKETS], SimulationTally::betsToWinLowerBound).buckets.isEmpty()
+    }
+
+    private static JackpotRules fixedRules(BigDecimal winChance) {
+        JackpotRules.builder()
+                .initialPool(1000.00)
+                .contributionType(ContributionType.FIXED_CONTRIBUTION)
+                .contributionPercentage(0.05)
+                .winChanceType(WinChanceType.FIXED_CHANCE)
+                .winChancePercentage(winChance)
+                .build()
+    }
+
+    private static SimulationParameters parameters(JackpotRules rules, long numberOfBets, int parallelism) {
+        SimulationParameters.builder()
+                .rules(rules)
+                .betAmount(100.00)
+                .numberOfBets(numberOfBets)
+                .parallelism(parallelism)
+                .seed(42L)
+                .build()
+    }
+}
@@ -0,0 +1,127 @@
+package com.albertolopez.jackpotbets.simulation
+
+import com.albertolopez.jackpotbets.api.dto.SimulationRequest
+import com.albertolopez.jackpotbets.domain.ContributionType
+import com.albertolopez.jackpotbets.domain.JackpotRules
+import com.albertolopez.jackpotbets.domain.WinChanceType
+import com.albertolopez.jackpotbets.persistence.entities.JackpotEntity
+import com.albertolopez.jackpotbets.persistence.repository.JackpotRepository
+import org.springframework.http.HttpStatus
+import org.springframework.web.server.ResponseStatusException
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class SimulationServiceSpec extends Specification {
+
+    private static final String JACKPOT_ID = "8d75dbf1-e50e-42f5-91b6-829c10f0d275"
+
+    JackpotRepository jackpotRepository = Mock()
+    SimulationService simulationService = new SimulationService(jackpotRepository, 2, 1000)
+
+    def cleanup() {
+        simulationService.close()
+    }
+
+    def "should simulate the configuration of a stored jackpot"() {
+        given:
+        jackpotRepository.findById(JACKPOT_ID) >> Optional.of(jackpot())
+
+        when:
+        def result = simulationService.simulate(request(1000))
+
+        then:
+        result.numberOfBets == 1000
+        result.parallelism == 2
+        result.seed == 42
+    }
+
+    def "should reject more bets than the configured maximum"() {
+        when:
+        simulationService.simulate(request(1001))
+
+        then:
+        def e = thrown(ResponseStatusException)
+        e.statusCode == HttpStatus.BAD_REQUEST
+        0 * jackpotRepository._
+    }
+
+    def "should return not found for an unknown jackpot"() {
+        given:
+        jackpotRepository.findById(JACKPOT_ID) >> Optional.empty()
+
+        when:
+        simulationService.simulate(request(1000))
+
+        then:
+        def e = thrown(ResponseStatusException)
+        e.statusCode == HttpStatus.NOT_FOUND
+    }
+
+    def "should reject a simulation while another one is running"() {
+        given: "A jackpot whose simulation blocks until released"
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def blockingJackpot = new JackpotEntity() {
+            @Override
+            JackpotRules rules() {
+                started.countDown()
+                release.await(10, TimeUnit.SECONDS)
+                super.rules()
+            }
+        }
+        copyConfiguration(jackpot(), blockingJackpot)
+        jackpotRepository.findById(JACKPOT_ID) >> Optional.of(blockingJackpot)
+
+        and: "A first simulation in progress"
+        def first = CompletableFuture.supplyAsync { simulationService.simulate(request(1000)) }
+        started.await(10, TimeUnit.SECONDS)
+
+        when:
+        simulationService.simulate(request(1000))
+
+        then:
+        def e = thrown(ResponseStatusException)
+        e.statusCode == HttpStatus.CONFLICT
+
+        when: "The first simulation finishes"
+        release.countDown()
+
+        then: "It completes and a new simulation can start"
+        first.get(10, TimeUnit.SECONDS).numberOfBets == 1000
+        simulationService.simulate(request(1000)).numberOfBets == 1000
+    }
+
+    private static SimulationRequest request(long numberOfBets) {
+        def request = new SimulationRequest()
+        request.jackpotId = JACKPOT_ID
+        request.betAmount = 10.00
+        request.numberOfBets = numberOfBets
+        request.seed = 42L
+        request
+    }
+
+    private static JackpotEntity jackpot() {
+        def jackpot = new JackpotEntity()
+        jackpot.id = JACKPOT_ID
+        jackpot.initialPool = 1000.00
+        jackpot.currentPool = 1000.00
+        jackpot.contributionType = ContributionType.FIXED_CONTRIBUTION
+        jackpot.contributionPercentage = 0.05
+        jackpot.winChanceType = WinChanceType.FIXED_CHANCE
+        jackpot.winChancePercentage = 0.01
+        jackpot
+    }
+
+    private static void copyConfiguration(JackpotEntity from, JackpotEntity to) {
+        to.id = from.id
+        to.initialPool = from.initialPool
+        to.currentPool = from.currentPool
+        to.contributionType = from.contributionType
+        to.contributionPercentage = from.contributionPercentage
+        to.winChanceType = from.winChanceType
+        to.winChancePercentage = from.winChancePercentage
+    }
+}